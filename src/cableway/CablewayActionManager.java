@@ -29,9 +29,12 @@ import java.awt.event.ActionListener;
 import java.beans.ExceptionListener;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
 
 /**
- * Cableway Action manager, store all the action and exception listeners of the cableway system.
+ * Cableway Action manager, store all the action and exception listeners of the cableway system
+ * and the scheduler shared by all the timed actions of the cableway.
  *
  * @author giuliobosco
  * @version 1.0
@@ -50,6 +53,11 @@ public class CablewayActionManager {
      */
     private List<ExceptionListener> exceptionListeners;
 
+    /**
+     * Scheduler of the timed actions, one thread for the whole cableway.
+     */
+    private ScheduledExecutorService scheduler;
+
     // --------------------------------------------------------------------------- Getters & Setters
 
     /**
@@ -88,6 +96,15 @@ public class CablewayActionManager {
         return this.exceptionListeners;
     }
 
+    /**
+     * Get the scheduler of the timed actions of the cableway.
+     *
+     * @return Scheduler of the timed actions.
+     */
+    public ScheduledExecutorService getScheduler() {
+        return this.scheduler;
+    }
+
     // -------------------------------------------------------------------------------- Constructors
 
     /**
@@ -97,6 +114,14 @@ public class CablewayActionManager {
     public CablewayActionManager() {
         this.setActionListeners(new ArrayList<>());
         this.setExceptionListeners(new ArrayList<>());
+
+        ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "cableway-scheduler");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.setRemoveOnCancelPolicy(true);
+        this.scheduler = scheduler;
     }
 
     // -------------------------------------------------------------------------------- Help Methods
@@ -30,13 +30,18 @@ import cableway.cable.CableException;
 import cableway.station.Station;
 
 import java.beans.ExceptionListener;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
- * Cableway checker, check all the cableway, check that everything works correctly.
+ * Cableway checker, check all the cableway, check that everything works correctly. The checks
+ * take a time proportional to the number of cabins of the line.
  *
  * @author giuliobosco
- * @version 1.0
+ * @version 1.1
  */
 public class CablewayChecker extends Thread {
     // ------------------------------------------------------------------------------------ Costants
@@ -49,14 +54,9 @@ public class CablewayChecker extends Thread {
     // ---------------------------------------------------------------------------------- Attributes
 
     /**
-     * Cabin 0 of the cableway.
+     * Cabins of the cableway.
      */
-    private Cabin cabin0;
-
-    /**
-     * Cabin 1 of the cableway.
-     */
-    private Cabin cabin1;
+    private List<Cabin> cabins;
 
     /**
      * Cable of the cableway.
@@ -119,47 +119,56 @@ public class CablewayChecker extends Thread {
     }
 
     // -------------------------------------------------------------------------------- Constructors
-    // -------------------------------------------------------------------------------- Help Methods
 
     /**
-     * Check the cabins.
+     * Create the cableway checker.
      *
-     * @throws CablewayException Cableway exception, error on the cabin.
-     */
-    public void checkCabins() throws CablewayException {
-        if (this.cabin0 == this.cabin1) {
-            throw new CablewayException(
-                    CablewayException.FATAL_TEXT + "\nRequired different 2 cabins",
-                    CablewayException.FATAL);
-        }
+     * @param cable        Cable of the cableway.
+     * @param cabins       Cabins of the cableway.
+     * @param lowerStation Lower cableway station.
+     * @param upperStation Upper cableway station.
+     */
+    public CablewayChecker(Cable cable, List<Cabin> cabins, Station lowerStation, Station upperStation) {
+        this.cable = cable;
+        this.cabins = Collections.unmodifiableList(new ArrayList<>(cabins));
+        this.lowerStation = lowerStation;
+        this.upperStation = upperStation;
+        this.exceptionListeners = new ArrayList<>();
     }
 
+    // -------------------------------------------------------------------------------- Help Methods
+
     /**
-     * Check the cabin 0.
+     * Check the cabins, the cabins must be different and each cabin must be correct.
      *
-     * @throws CablewayException Cableway exception, error on the cabin 0.
+     * @throws CablewayException Cableway exception, error on the cabin.
      */
-    public void checkCabin0() throws CablewayException {
-        this.cabin0.checkCabin();
+    public void checkCabins() throws CablewayException {
+        Map<Cabin, Boolean> checked = new IdentityHashMap<>();
 
-        if (this.cabin0.getCable() != this.cable) {
-            throw new CableException(
-                    CablewayException.FATAL_TEXT + "\nCabin 0 connected to wrong cable.",
-                    CablewayException.FATAL);
+        for (Cabin cabin : this.cabins) {
+            if (checked.put(cabin, Boolean.TRUE) != null) {
+                throw new CablewayException(
+                        CablewayException.FATAL_TEXT + "\nRequired different cabins",
+                        CablewayException.FATAL);
+            }
+
+            this.checkCabin(cabin);
         }
     }
 
     /**
-     * Check the cabin 1.
+     * Check a cabin, the cabin must be correct and connected to the cable of the cableway.
      *
-     * @throws CablewayException Cableway exception, error on the cabin 1.
+     * @param cabin Cabin to check.
+     * @throws CablewayException Cableway exception, error on the cabin.
      */
-    public void checkCabin1() throws CablewayException {
-        this.cabin1.checkCabin();
+    public void checkCabin(Cabin cabin) throws CablewayException {
+        cabin.checkCabin();
 
-        if (this.cabin1.getCable() != this.cable) {
+        if (cabin.getCable() != this.cable) {
             throw new CableException(
-                    CablewayException.FATAL_TEXT + "\nCabin 1 connected to wrong cable.",
+                    CablewayException.FATAL_TEXT + "\nCabin connected to wrong cable.",
                     CablewayException.FATAL);
         }
     }
@@ -182,8 +191,6 @@ public class CablewayChecker extends Thread {
         while (!this.isInterrupted()) {
             try {
                 this.checkCabins();
-                this.checkCabin0();
-                this.checkCabin1();
 
                 this.checkCable();
 
@@ -29,11 +29,16 @@ import cableway.cable.Cable;
 import cableway.station.Station;
 import gui.CabinPanel;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
 /**
- * Cableway manager, manage all the function of the cableway.
+ * Cableway manager, manage all the function of the cableway. The cableway is a jig-back line
+ * with two cabins, or a looped line with any number of cabins evenly spaced on the loop.
  *
  * @author giuliobosco
- * @version 1.0
+ * @version 1.1
  */
 public class CablewayManager {
 
@@ -44,17 +49,22 @@ public class CablewayManager {
      */
     public static final double CABLE_LENGTH = 10000;
 
+    /**
+     * Cabins of a jig-back line.
+     */
+    public static final int JIG_BACK_CABINS = 2;
+
     // ---------------------------------------------------------------------------------- Attributes
 
     /**
-     * Cable way cabin 0.
+     * Cableway cable.
      */
-    private Cabin cabin0;
+    private Cable cable;
 
     /**
-     * Cableway cabin 1.
+     * Cableway cabins.
      */
-    private Cabin cabin1;
+    private List<Cabin> cabins;
 
     /**
      * Cableway upper station.
@@ -82,13 +92,32 @@ public class CablewayManager {
         return this.cablewayActionManager;
     }
 
+    /**
+     * Get the cabins of the cableway.
+     *
+     * @return Cabins of the cableway.
+     */
+    public List<Cabin> getCabins() {
+        return this.cabins;
+    }
+
+    /**
+     * Get the panel of a cabin.
+     *
+     * @param index Index of the cabin.
+     * @return Cabin panel.
+     */
+    public CabinPanel getCabinPanel(int index) {
+        return new CabinPanel(this.cabins.get(index));
+    }
+
     /**
      * Get the cabin 0 panel.
      *
      * @return Cabin 0 panel.
      */
     public CabinPanel getCabin0Panel() {
-        return new CabinPanel(this.cabin0);
+        return this.getCabinPanel(0);
     }
 
     /**
@@ -97,43 +126,53 @@ public class CablewayManager {
      * @return Cabin 1 panel.
      */
     public CabinPanel getCabin1Panel() {
-        return new CabinPanel(this.cabin1);
+        return this.getCabinPanel(1);
     }
 
     // -------------------------------------------------------------------------------- Constructors
 
     /**
-     * Create and initialize the cableway.
+     * Create and initialize the cableway with a number of cabins.
+     *
+     * @param cabins Number of cabins.
+     * @param looped Looped line, else jig-back line with {@link #JIG_BACK_CABINS} cabins.
      */
-    public CablewayManager() {
+    public CablewayManager(int cabins, boolean looped) {
+        this.cablewayActionManager = new CablewayActionManager();
+        this.cabins = Collections.emptyList();
+
         try {
-            Cable cable = new Cable(CABLE_LENGTH);
-            this.cablewayActionManager = new CablewayActionManager();
-
-            this.cabin0 = new Cabin(cable, cablewayActionManager);
-            this.cabin1 = new Cabin(cable, cablewayActionManager);
-
-            this.lowerStation = new Station(
-                    Station.LOWER_STATION,
-                    this.cabin0,
-                    this.cabin1,
-                    this.cablewayActionManager
-            );
-
-            this.upperStation = new Station(
-                    Station.UPPER_STATION,
-                    this.cabin0,
-                    this.cabin1,
-                    this.cablewayActionManager
-            );
-
-            this.cabin0.start();
-            this.cabin1.start();
+            if (cabins <= 0 || !looped && cabins != JIG_BACK_CABINS) {
+                throw new CablewayException("Wrong number of cabins: " + cabins, CablewayException.FATAL);
+            }
+
+            this.cable = new Cable(CABLE_LENGTH, looped);
+
+            List<Cabin> line = new ArrayList<>(cabins);
+            double spacing = this.cable.getLoopLength() / cabins;
+            for (int i = 0; i < cabins; i++) {
+                line.add(new Cabin(this.cable, this.cablewayActionManager, i * spacing));
+            }
+            this.cabins = Collections.unmodifiableList(line);
+
+            this.lowerStation = new Station(Station.LOWER_STATION, this.cabins, this.cablewayActionManager);
+            this.upperStation = new Station(Station.UPPER_STATION, this.cabins, this.cablewayActionManager);
+
+            for (Cabin cabin : this.cabins) {
+                cabin.start();
+            }
         } catch (CablewayException ce) {
             this.cablewayActionManager.exceptionThrower(ce);
         }
     }
 
+    /**
+     * Create and initialize the jig-back cableway.
+     */
+    public CablewayManager() {
+        this(JIG_BACK_CABINS, false);
+    }
+
     // -------------------------------------------------------------------------------- Help Methods
     // ----------------------------------------------------------------------------- General Methods
     // --------------------------------------------------------------------------- Static Components
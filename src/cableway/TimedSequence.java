@@ -0,0 +1,184 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2018 giuliobosco.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package cableway;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Timed sequence of cableway steps, every step runs on the scheduler of the cableway action
+ * manager after the delay from the previous step, so the sequence never occupies a thread while
+ * waiting. The sequence starts as soon as it is created, a failed step skips the following
+ * steps and is thrown to the exception listeners of the action manager.
+ *
+ * @author giuliobosco
+ * @version 1.1
+ */
+public class TimedSequence {
+    // ------------------------------------------------------------------------------------ Costants
+    // ---------------------------------------------------------------------------------- Attributes
+
+    /**
+     * Cableway action manager, owner of the scheduler and of the exception listeners.
+     */
+    private CablewayActionManager cablewayActionManager;
+
+    /**
+     * Completion of the last step of the sequence.
+     */
+    private CompletableFuture<Void> future;
+
+    // --------------------------------------------------------------------------- Getters & Setters
+    // -------------------------------------------------------------------------------- Constructors
+
+    /**
+     * Create the timed sequence, empty and already started.
+     *
+     * @param cablewayActionManager Cableway action manager.
+     */
+    public TimedSequence(CablewayActionManager cablewayActionManager) {
+        this.cablewayActionManager = cablewayActionManager;
+        this.future = CompletableFuture.completedFuture(null);
+    }
+
+    // -------------------------------------------------------------------------------- Help Methods
+
+    /**
+     * Schedule a step on the scheduler after the delay, complete the next step of the sequence
+     * when the step has run.
+     *
+     * @param delay Delay in milliseconds.
+     * @param step  Step to run.
+     * @param next  Completion of the step.
+     */
+    private void schedule(long delay, Step step, CompletableFuture<Void> next) {
+        this.cablewayActionManager.getScheduler().schedule(() -> {
+            try {
+                step.run();
+                next.complete(null);
+            } catch (CablewayException | RuntimeException e) {
+                next.completeExceptionally(e);
+            }
+        }, delay, TimeUnit.MILLISECONDS);
+    }
+
+    // ----------------------------------------------------------------------------- General Methods
+
+    /**
+     * Add a step to run right after the previous step.
+     *
+     * @param step Step to run.
+     * @return This sequence.
+     */
+    public TimedSequence then(Step step) {
+        this.future = this.future.thenRun(runnableOf(step));
+        return this;
+    }
+
+    /**
+     * Add a step to run on the scheduler the delay after the previous step.
+     *
+     * @param delay Delay from the previous step in milliseconds.
+     * @param step  Step to run.
+     * @return This sequence.
+     */
+    public TimedSequence after(long delay, Step step) {
+        CompletableFuture<Void> next = new CompletableFuture<>();
+
+        this.future.whenComplete((result, throwable) -> {
+            if (throwable != null) {
+                next.completeExceptionally(throwable);
+            } else {
+                this.schedule(delay, step, next);
+            }
+        });
+
+        this.future = next;
+        return this;
+    }
+
+    /**
+     * End the sequence, a failed step is thrown to the exception listeners.
+     *
+     * @return Completion of the last step, completed exceptionally if a step failed.
+     */
+    public CompletableFuture<Void> end() {
+        return this.future.whenComplete((result, throwable) -> {
+            if (throwable != null) {
+                this.cablewayActionManager.exceptionThrower(exceptionOf(throwable));
+            }
+        });
+    }
+
+    // --------------------------------------------------------------------------- Static Components
+
+    /**
+     * Step of a timed sequence.
+     */
+    @FunctionalInterface
+    public interface Step {
+
+        /**
+         * Run the step.
+         *
+         * @throws CablewayException Cableway exception, the sequence stops.
+         */
+        void run() throws CablewayException;
+    }
+
+    /**
+     * Get the runnable of a step, the cableway exception is wrapped in a completion exception.
+     *
+     * @param step Step of the sequence.
+     * @return Runnable of the step.
+     */
+    private static Runnable runnableOf(Step step) {
+        return () -> {
+            try {
+                step.run();
+            } catch (CablewayException ce) {
+                throw new CompletionException(ce);
+            }
+        };
+    }
+
+    /**
+     * Get the exception that stopped the sequence, unwrapped from the completion exception.
+     *
+     * @param throwable Throwable of the sequence.
+     * @return Exception that stopped the sequence.
+     */
+    private static Exception exceptionOf(Throwable throwable) {
+        Throwable cause = throwable;
+        if (cause instanceof CompletionException && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        if (cause instanceof Exception) {
+            return (Exception) cause;
+        }
+        return new CompletionException(cause);
+    }
+}
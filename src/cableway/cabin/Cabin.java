@@ -26,20 +26,23 @@ package cableway.cabin;
 
 import cableway.CablewayActionManager;
 import cableway.CablewayException;
+import cableway.TimedSequence;
 import cableway.cable.Cable;
+import cableway.cable.CableListener;
 import cableway.people.FullSetException;
 import cableway.people.PeopleSet;
 import cableway.people.Person;
 
 import java.awt.event.ActionEvent;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Cableway cabin.
  *
  * @author giuliobosco
- * @version 1.1.1
+ * @version 1.5
  */
-public class Cabin extends Thread {
+public class Cabin implements CableListener {
     // ------------------------------------------------------------------------------------ Costants
 
     /**
@@ -62,42 +65,47 @@ public class Cabin extends Thread {
      */
     public final static double MAX_WEIGHT = 7000;
 
-    /**
-     * Time between cabin checks, 200 milliseconds.
-     */
-    public final static long CABIN_CHECK = 200;
-
     /**
      * Max people in the cabin.
      */
     public final static int MAX_PEOPLE = 85;
 
-    // ---------------------------------------------------------------------------------- Attributes
+    /**
+     * Tolerance comparing the positions of the cabin, in meters.
+     */
+    public final static double POSITION_TOLERANCE = 1e-6;
 
     /**
-     * Weight in the cabin.
+     * Time to open or close a door of the cabin, in milliseconds.
      */
-    private double weight;
+    public final static long DOOR_TIME = 50;
+
+    // ---------------------------------------------------------------------------------- Attributes
 
     /**
      * Cable to the cabin.
      */
     private Cable cable;
 
+    /**
+     * Offset of the cabin on the loop of the cable.
+     */
+    private final double offset;
+
     /**
      * Status of the internal door of the cabin.
      */
-    private boolean internalDoorOpen;
+    private volatile boolean internalDoorOpen;
 
     /**
      * Status of the external door of the cabin.
      */
-    private boolean externalDoorOpen;
+    private volatile boolean externalDoorOpen;
 
     /**
      * Cabin ready to start.
      */
-    private boolean ready;
+    private volatile boolean ready;
 
     /**
      * Cableway action manager.
@@ -105,39 +113,47 @@ public class Cabin extends Thread {
     private CablewayActionManager cablewayActionManager;
 
     /**
-     * People in the cabin.
+     * People in the cabin, keep the weight of the cabin.
      */
-    private PeopleSet people;
+    private volatile PeopleSet people;
 
     // --------------------------------------------------------------------------- Getters & Setters
 
     /**
-     * Get the weight of the cabin.
+     * Get the weight of the cabin, the total weight of the people in the cabin.
      *
      * @return Weight of the cabin.
      */
     public double getWeight() {
-        return this.weight;
+        return this.people.getTotalWeight();
     }
 
     /**
-     * Set the weight of the cabin.
+     * Get the cable of the cabin.
      *
-     * @param weight Weight of the cabin.
-     * @throws CabinWeightException Cabin weight exception.
+     * @return Cable of the cabin.
      */
-    public void setWeight(double weight) throws CabinWeightException {
-        checkWeigth(weight);
-        this.weight = weight;
+    public Cable getCable() {
+        return this.cable;
     }
 
     /**
-     * Get the cable of the cabin.
+     * Get the offset of the cabin on the loop of the cable.
      *
-     * @return Cable of the cabin.
+     * @return Offset of the cabin.
      */
-    public Cable getCable() {
-        return this.cable;
+    public double getOffset() {
+        return this.offset;
+    }
+
+    /**
+     * Get the position of the cabin on the line, from 0 at the lower station, up to the length of
+     * the cable at the upper station and back down to the lower station.
+     *
+     * @return Position of the cabin on the loop.
+     */
+    public double getTrackPosition() {
+        return Cable.wrap(this.cable.getPosition() + this.offset, this.cable.getLoopLength());
     }
 
     /**
@@ -186,15 +202,20 @@ public class Cabin extends Thread {
     }
 
     /**
-     * Set the people in the cabin.
+     * Set the people in the cabin, the people are blocked in the cabin and the persons waiting to
+     * board are woken up.
      *
      * @param people People in the cabin.
      * @throws CablewayException Cableway exception, error with the weight of the cabin or too many
      *                           people in the cabin.
      */
     public void setPeople(PeopleSet people) throws CablewayException {
+        this.checkWeigth(people.getTotalWeight());
         this.people = people;
-        this.setWeight(people.getTotalWeight());
+
+        for (Person person : people.getPeople()) {
+            person.setBlocked(true);
+        }
     }
 
     /**
@@ -207,36 +228,42 @@ public class Cabin extends Thread {
     }
 
     /**
-     * Add person to the cabin.
+     * Add person to the cabin. The seat and the weight of the person are reserved atomically in
+     * the people of the cabin, so the people can board from many doors at the same time without
+     * overshooting the maximum weight and the maximum people.
      *
      * @param person Person to add.
      * @throws CablewayException Cableway exception, problem with the weight or too many people in
      *                           the cabin.
      */
     public void addPerson(Person person) throws CablewayException {
-        this.incrementWeight(person.getWeight());
-        this.getPeople().addPerson(person);
+        PeopleSet people = this.getPeople();
+
+        try {
+            people.board(person, MAX_WEIGHT);
+        } catch (FullSetException fse) {
+            if (people.isFull()) {
+                throw fse;
+            }
+            throw new CabinWeightException("The weight of the person is over the free weight of the cabin.");
+        }
+
+        person.setBlocked(true);
     }
 
     /**
      * Remove person from the cabin.
      *
      * @param person Person to remove.
-     * @throws CabinWeightException Cabin weight exception, problem with the weight of the cabin.
      */
-    public void removePerson(Person person) throws CabinWeightException {
-        this.decrementWeight(person.getWeight());
+    public void removePerson(Person person) {
         this.getPeople().removePerson(person);
     }
 
     /**
      * Empty the people in the cabin.
-     *
-     * @throws CabinWeightException Cabin weight exception, problem with the weight of the cabin.
      */
-    public void emptyPeople() throws CabinWeightException {
-        this.decrementWeight(this.getPeople().getTotalWeight());
-
+    public void emptyPeople() {
         for (Person person : this.getPeople().getPeople()) {
             person.setBlocked(false);
         }
@@ -246,60 +273,73 @@ public class Cabin extends Thread {
     // -------------------------------------------------------------------------------- Constructors
 
     /**
-     * Create the cabin with the cable.
+     * Create the cabin attached to the cable at an offset on the loop.
      *
      * @param cable                 Cable of the cabin.
      * @param cablewayActionManager Cableway action manager.
+     * @param offset                Offset of the cabin on the loop, the position of the cabin
+     *                              on the line when the cable is at position 0.
      */
-    public Cabin(Cable cable, CablewayActionManager cablewayActionManager) throws FullSetException {
+    public Cabin(Cable cable, CablewayActionManager cablewayActionManager, double offset) throws FullSetException {
         this.cable = cable;
         this.cablewayActionManager = cablewayActionManager;
+        this.offset = Cable.wrap(offset, cable.getLoopLength());
         this.people = new PeopleSet(MAX_PEOPLE);
     }
 
+    /**
+     * Create the cabin with the cable, at the lower station when the cable is at position 0.
+     *
+     * @param cable                 Cable of the cabin.
+     * @param cablewayActionManager Cableway action manager.
+     */
+    public Cabin(Cable cable, CablewayActionManager cablewayActionManager) throws FullSetException {
+        this(cable, cablewayActionManager, 0);
+    }
+
     // -------------------------------------------------------------------------------- Help Methods
 
     /**
-     * Check the weight.
-     * Must be a valid weight, so bigger than 0 and smaller than the maximum weight.
+     * Is the cabin at a position of the line.
      *
-     * @param weight Weight.
-     * @throws CabinWeightException Cabin weight exception, not valid weight.
+     * @param trackPosition Position on the line.
+     * @return True if the cabin is at the position.
      */
-    public void checkWeigth(double weight) throws CabinWeightException {
-        if (!(weight > 0 && weight < MAX_WEIGHT)) {
-            throw new CabinWeightException(this);
-        }
+    public boolean isAt(double trackPosition) {
+        double distance = Math.abs(this.getTrackPosition() - Cable.wrap(trackPosition, this.cable.getLoopLength()));
+        return Math.min(distance, this.cable.getLoopLength() - distance) < POSITION_TOLERANCE;
     }
 
     /**
-     * check the weight.
-     * Must be a valid weight, bigger than 0 and smaller than the maximum weight.
+     * Is the cabin at a station, the lower or the upper station.
      *
-     * @throws CabinWeightException Cabin weight exception, not valid weight.
+     * @return True if the cabin is at a station.
      */
-    public void checkWeigth() throws CabinWeightException {
-        checkWeigth(this.weight);
+    public boolean isAtStation() {
+        return this.isAt(0) || this.isAt(this.cable.getLength());
     }
 
     /**
-     * Increment the weight of the cabin of the x value.
+     * Check the weight.
+     * Must be a valid weight, so not negative (empty cabin) and smaller than the maximum weight.
      *
-     * @param x Value increment to the weight.
-     * @throws CabinWeightException Error with the weight.
+     * @param weight Weight.
+     * @throws CabinWeightException Cabin weight exception, not valid weight.
      */
-    public void incrementWeight(double x) throws CabinWeightException {
-        this.setWeight(this.getWeight() + x);
+    public void checkWeigth(double weight) throws CabinWeightException {
+        if (!(weight >= 0 && weight < MAX_WEIGHT)) {
+            throw new CabinWeightException(this);
+        }
     }
 
     /**
-     * Decrement the weight of the cabin of the x value.
+     * check the weight.
+     * Must be a valid weight, not negative and smaller than the maximum weight.
      *
-     * @param x Value to decrement the weight.
-     * @throws CabinWeightException Error with the weight.
+     * @throws CabinWeightException Cabin weight exception, not valid weight.
      */
-    public void decrementWeight(double x) throws CabinWeightException {
-        this.setWeight(this.getWeight() - x);
+    public void checkWeigth() throws CabinWeightException {
+        checkWeigth(this.getWeight());
     }
 
     /**
@@ -362,69 +402,72 @@ public class Cabin extends Thread {
     // ----------------------------------------------------------------------------- General Methods
 
     /**
-     * Start the cabin.
+     * Start the cabin, close the external door, then the internal door and set the cabin ready,
+     * each step on the cableway scheduler after the door time.
      *
-     * @throws InterruptedException Interrupt the thread.
-     * @throws CablewayException    Cableway exception, cabin or cable exception.
-     */
-    public void startCabin() throws InterruptedException, CablewayException {
-        this.closeExternalDoor();
-        Thread.sleep(50);
-        this.closeInternalDoor();
-        Thread.sleep(50);
+     * @return Completion of the start sequence.
+     */
+    public CompletableFuture<Void> startCabin() {
+        return new TimedSequence(this.cablewayActionManager)
+                .then(this::closeExternalDoor)
+                .after(DOOR_TIME, this::closeInternalDoor)
+                .after(DOOR_TIME, () -> this.setReady(true))
+                .end();
+    }
 
-        this.setReady(true);
+    /**
+     * Stop the cabin, set the cabin not ready, open the external door, then the internal door,
+     * each step on the cableway scheduler after the door time.
+     *
+     * @return Completion of the stop sequence.
+     */
+    public CompletableFuture<Void> stopCabin() {
+        return new TimedSequence(this.cablewayActionManager)
+                .then(() -> this.setReady(false))
+                .then(this::openExternallDoor)
+                .after(DOOR_TIME, this::openInternalDoor)
+                .end();
     }
 
     /**
-     * Stop the cabin.
+     * Cable moved, notify the cabin moved and, if the cabin is at a station, the cabin arrived,
+     * then check the cabin.
      *
-     * @throws InterruptedException Interrupt the thread.
-     * @throws CablewayException    Cableway exception, cabin or cable exception.
+     * @param cable    Cable moved.
+     * @param position Position of the cable before the move.
      */
-    public void stopCabin() throws InterruptedException, CablewayException {
-        this.setReady(false);
+    @Override
+    public void cableMoved(Cable cable, double position) {
+        this.cablewayActionManager.actionPerformer(
+                new ActionEvent(this, ActionEvent.ACTION_PERFORMED, MOVED)
+        );
+
+        if (this.isAtStation()) {
+            this.cablewayActionManager.actionPerformer(
+                    new ActionEvent(this, ActionEvent.ACTION_PERFORMED, ARRIVED)
+            );
+        }
 
-        this.openExternallDoor();
-        Thread.sleep(50);
-        this.openInternalDoor();
-        Thread.sleep(50);
+        try {
+            this.checkCabin();
+        } catch (CablewayException ce) {
+            this.cablewayActionManager.exceptionThrower(ce);
+        }
     }
 
     /**
-     * Run method of the class.
+     * Start monitoring the cable. The cabin is notified by the cable at every move, so no thread
+     * keeps checking it.
      */
-    @Override
-    public void run() {
-        double position = this.cable.getPosition();
-
-        boolean flag = true;
-        while (flag) {
-            try {
-                if (position != this.cable.getPosition()) {
-                    this.cablewayActionManager.actionPerformer(
-                            new ActionEvent(this, ActionEvent.ACTION_PERFORMED, MOVED)
-                    );
-
-                    if (this.getCable().isArrived()) {
-                        this.cablewayActionManager.actionPerformer(
-                                new ActionEvent(this, ActionEvent.ACTION_PERFORMED, ARRIVED)
-                        );
-                    }
-
-                    position = this.cable.getPosition();
-                }
-
-                this.checkCabin();
-
-                Thread.sleep(CABIN_CHECK);
-                if (this.isInterrupted()) {
-                    flag = false;
-                }
-            } catch (InterruptedException | CablewayException e) {
-                this.cablewayActionManager.exceptionThrower(e);
-            }
-        }
+    public void start() {
+        this.cable.addCableListener(this);
+    }
+
+    /**
+     * Stop monitoring the cable, the cabin is no more notified of the moves.
+     */
+    public void stop() {
+        this.cable.removeCableListener(this);
     }
 
     // --------------------------------------------------------------------------- Static Components
@@ -28,11 +28,19 @@ import cableway.CablewayException;
 import cableway.cabin.Cabin;
 import cableway.cabin.CabinException;
 
+import java.util.concurrent.CopyOnWriteArrayList;
+
 /**
- * Cableway cable, keep the length, the position and the speed of the cableway cable.
+ * Cableway cable, keep the length, the position and the speed of the cableway cable. The changes
+ * of the position and of the speed are published to the {@link CableListener}s, so the cabins
+ * react at the move instead of polling the cable.
+ *
+ * <p>A jig-back cable moves back and forth between 0 and the length of the line. A looped cable
+ * moves around a loop twice as long as the line, up and back down, its position wraps around
+ * the loop. The cabins are attached to the cable at an offset on the loop.</p>
  *
  * @author giuliobosco
- * @version 1.1.1
+ * @version 1.3
  */
 public class Cable {
 
@@ -55,15 +63,25 @@ public class Cable {
      */
     private double lenght;
 
+    /**
+     * Looped cable, the position wraps around the loop.
+     */
+    private final boolean looped;
+
     /**
      * Position of the cable.
      */
-    private double position;
+    private volatile double position;
 
     /**
      * Speed of the cable.
      */
-    private double speed;
+    private volatile double speed;
+
+    /**
+     * Listeners of the cable changes.
+     */
+    private final CopyOnWriteArrayList<CableListener> cableListeners = new CopyOnWriteArrayList<>();
 
     // --------------------------------------------------------------------------- Getters & Setters
 
@@ -87,16 +105,45 @@ public class Cable {
         return this.lenght;
     }
 
+    /**
+     * Get the length of the loop of the cable, up and back down the line.
+     *
+     * @return Length of the loop.
+     */
+    public double getLoopLength() {
+        return this.lenght * 2;
+    }
+
+    /**
+     * Is the cable looped.
+     *
+     * @return True if the position of the cable wraps around the loop.
+     */
+    public boolean isLooped() {
+        return this.looped;
+    }
+
     /**
      * Set the position of the cable.
      * Check that the position has a valid value, so bigger than 0 and smaller than the length of
-     * the cable.
+     * the cable. The position of a looped cable wraps around the loop.
      *
      * @param position Position of the cable.
      */
     public void setPosition(double position) throws CablePositionException {
+        if (this.looped) {
+            position = wrap(position, this.getLoopLength());
+        }
+
         this.checkPosition(position);
+        double previous = this.position;
         this.position = position;
+
+        if (previous != position) {
+            for (CableListener cableListener : this.cableListeners) {
+                cableListener.cableMoved(this, previous);
+            }
+        }
     }
 
     /**
@@ -116,7 +163,32 @@ public class Cable {
      * @param speed Speed of the cable.
      */
     public void setSpeed(double speed) throws CablewayException {
+        double previous = this.speed;
         this.speed = speed;
+
+        if (previous != speed) {
+            for (CableListener cableListener : this.cableListeners) {
+                cableListener.speedChanged(this, previous);
+            }
+        }
+    }
+
+    /**
+     * Add a listener of the cable changes, if not already added.
+     *
+     * @param cableListener Cable listener to add.
+     */
+    public void addCableListener(CableListener cableListener) {
+        this.cableListeners.addIfAbsent(cableListener);
+    }
+
+    /**
+     * Remove a listener of the cable changes.
+     *
+     * @param cableListener Cable listener to remove.
+     */
+    public void removeCableListener(CableListener cableListener) {
+        this.cableListeners.remove(cableListener);
     }
 
     /**
@@ -131,18 +203,31 @@ public class Cable {
     // -------------------------------------------------------------------------------- Constructors
 
     /**
-     * Create the cable, with the length of the cable.
+     * Create the cable, with the length of the line.
      * Sets position to 0 and speed too.
      *
-     * @param length Length of the cable.
+     * @param length Length of the line.
+     * @param looped Looped cable, else jig-back cable.
      * @throws CablewayException Cableway exception,
      */
-    public Cable(double length) throws CablewayException {
+    public Cable(double length, boolean looped) throws CablewayException {
+        this.looped = looped;
         this.setLength(length);
         this.setPosition(0);
         this.setSpeed(0);
     }
 
+    /**
+     * Create the jig-back cable, with the length of the cable.
+     * Sets position to 0 and speed too.
+     *
+     * @param length Length of the cable.
+     * @throws CablewayException Cableway exception,
+     */
+    public Cable(double length) throws CablewayException {
+        this(length, false);
+    }
+
     // -------------------------------------------------------------------------------- Help Methods
 
     /**
@@ -175,7 +260,7 @@ public class Cable {
      * @throws CablePositionException Cable position exception, not valid position.
      */
     private void checkPosition(double position) throws CablePositionException {
-        if (position < 0 || position > this.getLength()) {
+        if (position < 0 || position > (this.looped ? this.getLoopLength() : this.getLength())) {
             throw new CablePositionException(this);
         }
     }
@@ -223,7 +308,7 @@ public class Cable {
      */
     public void incrementSpeed() throws CablewayException {
         if (this.getSpeed() == 0) {
-            this.speed++;
+            this.setSpeed(1);
         }
 
         if (this.getSpeed() > 0) {
@@ -238,7 +323,7 @@ public class Cable {
      */
     public void decrementSpeed() throws CablewayException {
         if (this.getSpeed() == 0) {
-            this.speed--;
+            this.setSpeed(-1);
         }
 
         if (this.getSpeed() > 0) {
@@ -260,4 +345,16 @@ public class Cable {
     }
 
     // --------------------------------------------------------------------------- Static Components
+
+    /**
+     * Wrap a position around a loop.
+     *
+     * @param position Position.
+     * @param loop     Length of the loop.
+     * @return Position on the loop, from 0 (included) to the length of the loop (excluded).
+     */
+    public static double wrap(double position, double loop) {
+        double wrapped = position % loop;
+        return wrapped < 0 ? wrapped + loop : wrapped;
+    }
 }
@@ -0,0 +1,51 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2018 giuliobosco.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package cableway.cable;
+
+/**
+ * Cable listener, notified by the cable when its position or its speed changes. The listeners
+ * are notified on the thread changing the cable, at the time of the change.
+ *
+ * @author giuliobosco
+ * @version 1.0
+ */
+public interface CableListener {
+
+    /**
+     * The position of the cable changed.
+     *
+     * @param cable    Cable moved.
+     * @param position Position of the cable before the move.
+     */
+    void cableMoved(Cable cable, double position);
+
+    /**
+     * The speed of the cable changed.
+     *
+     * @param cable Cable.
+     * @param speed Speed of the cable before the change.
+     */
+    default void speedChanged(Cable cable, double speed) {
+    }
+}
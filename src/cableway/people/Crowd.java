@@ -0,0 +1,369 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2018 giuliobosco.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package cableway.people;
+
+import java.util.Arrays;
+
+/**
+ * Crowd of passengers stored by columns: every attribute of the passengers is a primitive array,
+ * indexed by the passenger number. A passenger costs about 33 bytes, so a day of a million
+ * passengers fits in some tens of megabytes, and the scans of an attribute over the whole crowd
+ * read contiguous memory.
+ * A passenger is seen as a {@link Person} only when needed, with {@link #person(int)}.
+ * The crowd is not thread safe.
+ *
+ * @author giuliobosco
+ * @version 1.0
+ */
+public class Crowd {
+    // ------------------------------------------------------------------------------------ Costants
+
+    /**
+     * Passenger arriving at the station.
+     */
+    public static final byte ARRIVING = 0;
+
+    /**
+     * Passenger at the gates.
+     */
+    public static final byte AT_GATE = 1;
+
+    /**
+     * Passenger in the station queue.
+     */
+    public static final byte QUEUED = 2;
+
+    /**
+     * Passenger boarded on a cabin.
+     */
+    public static final byte BOARDED = 3;
+
+    /**
+     * Passenger transported to the other station.
+     */
+    public static final byte TRANSPORTED = 4;
+
+    /**
+     * Passenger rejected by the gates.
+     */
+    public static final byte REJECTED = 5;
+
+    /**
+     * Time not set.
+     */
+    public static final long NO_TIME = Long.MIN_VALUE;
+
+    /**
+     * Default initial capacity.
+     */
+    private static final int DEFAULT_CAPACITY = 1024;
+
+    // ---------------------------------------------------------------------------------- Attributes
+
+    /**
+     * Number of passengers.
+     */
+    private int size;
+
+    /**
+     * Weights of the passengers.
+     */
+    private float[] weights;
+
+    /**
+     * States of the passengers.
+     */
+    private byte[] states;
+
+    /**
+     * Skipasses identifiers of the passengers.
+     */
+    private long[] skipasses;
+
+    /**
+     * Positions of the passengers in the queues.
+     */
+    private int[] queuePositions;
+
+    /**
+     * Arrival times of the passengers in milliseconds.
+     */
+    private long[] arrivalTimes;
+
+    /**
+     * Boarding times of the passengers in milliseconds.
+     */
+    private long[] boardingTimes;
+
+    // --------------------------------------------------------------------------- Getters & Setters
+
+    /**
+     * Get the number of passengers.
+     *
+     * @return Number of passengers.
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Get the weight of a passenger.
+     *
+     * @param index Passenger number.
+     * @return Weight of the passenger.
+     */
+    public double getWeight(int index) {
+        return this.weights[this.check(index)];
+    }
+
+    /**
+     * Set the weight of a passenger.
+     *
+     * @param index  Passenger number.
+     * @param weight Weight of the passenger.
+     */
+    public void setWeight(int index, double weight) {
+        this.weights[this.check(index)] = (float) weight;
+    }
+
+    /**
+     * Get the state of a passenger.
+     *
+     * @param index Passenger number.
+     * @return State of the passenger.
+     */
+    public byte getState(int index) {
+        return this.states[this.check(index)];
+    }
+
+    /**
+     * Set the state of a passenger.
+     *
+     * @param index Passenger number.
+     * @param state State of the passenger.
+     */
+    public void setState(int index, byte state) {
+        this.states[this.check(index)] = state;
+    }
+
+    /**
+     * Get the skipass identifier of a passenger.
+     *
+     * @param index Passenger number.
+     * @return Skipass identifier, 0 if the passenger has no skipass.
+     */
+    public long getSkipass(int index) {
+        return this.skipasses[this.check(index)];
+    }
+
+    /**
+     * Get the position of a passenger in its queue.
+     *
+     * @param index Passenger number.
+     * @return Position in the queue.
+     */
+    public int getQueuePosition(int index) {
+        return this.queuePositions[this.check(index)];
+    }
+
+    /**
+     * Set the position of a passenger in its queue.
+     *
+     * @param index    Passenger number.
+     * @param position Position in the queue.
+     */
+    public void setQueuePosition(int index, int position) {
+        this.queuePositions[this.check(index)] = position;
+    }
+
+    /**
+     * Get the arrival time of a passenger.
+     *
+     * @param index Passenger number.
+     * @return Arrival time in milliseconds.
+     */
+    public long getArrivalTime(int index) {
+        return this.arrivalTimes[this.check(index)];
+    }
+
+    /**
+     * Get the boarding time of a passenger.
+     *
+     * @param index Passenger number.
+     * @return Boarding time in milliseconds, {@link #NO_TIME} if not boarded.
+     */
+    public long getBoardingTime(int index) {
+        return this.boardingTimes[this.check(index)];
+    }
+
+    /**
+     * Set the boarding time of a passenger.
+     *
+     * @param index Passenger number.
+     * @param time  Boarding time in milliseconds.
+     */
+    public void setBoardingTime(int index, long time) {
+        this.boardingTimes[this.check(index)] = time;
+    }
+
+    // -------------------------------------------------------------------------------- Constructors
+
+    /**
+     * Create the crowd with the expected number of passengers.
+     *
+     * @param capacity Expected number of passengers.
+     */
+    public Crowd(int capacity) {
+        capacity = Math.max(capacity, 1);
+
+        this.weights = new float[capacity];
+        this.states = new byte[capacity];
+        this.skipasses = new long[capacity];
+        this.queuePositions = new int[capacity];
+        this.arrivalTimes = new long[capacity];
+        this.boardingTimes = new long[capacity];
+    }
+
+    /**
+     * Create the crowd with the default capacity.
+     */
+    public Crowd() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    // -------------------------------------------------------------------------------- Help Methods
+
+    /**
+     * Check the passenger number.
+     *
+     * @param index Passenger number.
+     * @return Passenger number.
+     */
+    private int check(int index) {
+        if (index < 0 || index >= this.size) {
+            throw new IndexOutOfBoundsException("Passenger " + index + ", crowd size " + this.size);
+        }
+
+        return index;
+    }
+
+    /**
+     * Grow the columns, of one half.
+     */
+    private void grow() {
+        int capacity = this.weights.length + (this.weights.length >> 1) + 1;
+
+        this.weights = Arrays.copyOf(this.weights, capacity);
+        this.states = Arrays.copyOf(this.states, capacity);
+        this.skipasses = Arrays.copyOf(this.skipasses, capacity);
+        this.queuePositions = Arrays.copyOf(this.queuePositions, capacity);
+        this.arrivalTimes = Arrays.copyOf(this.arrivalTimes, capacity);
+        this.boardingTimes = Arrays.copyOf(this.boardingTimes, capacity);
+    }
+
+    // ----------------------------------------------------------------------------- General Methods
+
+    /**
+     * Add a passenger to the crowd, arriving.
+     *
+     * @param weight      Weight of the passenger.
+     * @param skipass     Skipass identifier, 0 if the passenger has no skipass.
+     * @param arrivalTime Arrival time in milliseconds.
+     * @return Passenger number.
+     */
+    public int add(double weight, long skipass, long arrivalTime) {
+        if (this.size == this.weights.length) {
+            this.grow();
+        }
+
+        int index = this.size++;
+        this.weights[index] = (float) weight;
+        this.states[index] = ARRIVING;
+        this.skipasses[index] = skipass;
+        this.queuePositions[index] = -1;
+        this.arrivalTimes[index] = arrivalTime;
+        this.boardingTimes[index] = NO_TIME;
+
+        return index;
+    }
+
+    /**
+     * Get a passenger as a person, a view on the crowd: the weight of the person is the weight of
+     * the passenger.
+     *
+     * @param index Passenger number.
+     * @return Person view of the passenger.
+     */
+    public Person person(int index) {
+        return new Person(this, this.check(index));
+    }
+
+    /**
+     * Count the passengers in a state.
+     *
+     * @param state State of the passengers.
+     * @return Number of passengers in the state.
+     */
+    public int count(byte state) {
+        int count = 0;
+
+        for (int i = 0; i < this.size; i++) {
+            if (this.states[i] == state) {
+                count++;
+            }
+        }
+
+        return count;
+    }
+
+    /**
+     * Get the average wait from the arrival to the boarding of the boarded passengers.
+     *
+     * @return Average wait in milliseconds.
+     */
+    public double getAverageWait() {
+        long total = 0;
+        int boarded = 0;
+
+        for (int i = 0; i < this.size; i++) {
+            if (this.boardingTimes[i] != NO_TIME) {
+                total += this.boardingTimes[i] - this.arrivalTimes[i];
+                boarded++;
+            }
+        }
+
+        return boarded == 0 ? 0 : (double) total / boarded;
+    }
+
+    /**
+     * Remove all the passengers.
+     */
+    public void clear() {
+        this.size = 0;
+    }
+
+    // --------------------------------------------------------------------------- Static Components
+
+}
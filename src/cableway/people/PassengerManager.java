@@ -0,0 +1,193 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2018 giuliobosco.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package cableway.people;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Passenger manager, run the life of the people and manage it, start, stop and wait the people.
+ * The people run on virtual threads when the java runtime has them, so a crowd of hundred
+ * thousands passengers costs only their state; on older runtimes they run on daemon threads
+ * with a small stack.
+ *
+ * @author giuliobosco
+ * @version 1.0
+ */
+public class PassengerManager {
+    // ------------------------------------------------------------------------------------ Costants
+
+    /**
+     * Stack size of the passenger threads without virtual threads, 128 KiB.
+     */
+    private static final long STACK_SIZE = 128 * 1024;
+
+    // ---------------------------------------------------------------------------------- Attributes
+
+    /**
+     * Executor of the people lives.
+     */
+    private final ExecutorService executor;
+
+    /**
+     * People running, with their lives.
+     */
+    private final Map<Person, Future<?>> passengers;
+
+    /**
+     * The people run on virtual threads.
+     */
+    private final boolean virtual;
+
+    // --------------------------------------------------------------------------- Getters & Setters
+
+    /**
+     * Get the number of people running.
+     *
+     * @return Number of people running.
+     */
+    public int getActiveCount() {
+        return this.passengers.size();
+    }
+
+    /**
+     * Do the people run on virtual threads.
+     *
+     * @return True if the people run on virtual threads.
+     */
+    public boolean isVirtual() {
+        return this.virtual;
+    }
+
+    // -------------------------------------------------------------------------------- Constructors
+
+    /**
+     * Create the passenger manager, use virtual threads if available.
+     */
+    public PassengerManager() {
+        ExecutorService executor = virtualExecutor();
+
+        this.virtual = executor != null;
+        this.executor = this.virtual ? executor : Executors.newCachedThreadPool(smallStackFactory());
+        this.passengers = new ConcurrentHashMap<>();
+    }
+
+    // -------------------------------------------------------------------------------- Help Methods
+
+    /**
+     * Run the life of a person and forget it when it ends.
+     *
+     * @param person Person to run.
+     */
+    private void live(Person person) {
+        try {
+            person.run();
+        } finally {
+            this.passengers.remove(person);
+        }
+    }
+
+    // ----------------------------------------------------------------------------- General Methods
+
+    /**
+     * Start the life of a person.
+     *
+     * @param person Person to start.
+     */
+    public void start(Person person) {
+        this.passengers.computeIfAbsent(person, p -> this.executor.submit(() -> this.live(p)));
+    }
+
+    /**
+     * Stop the life of a person, interrupt it.
+     *
+     * @param person Person to stop.
+     */
+    public void stop(Person person) {
+        Future<?> life = this.passengers.remove(person);
+
+        if (life != null) {
+            life.cancel(true);
+        }
+    }
+
+    /**
+     * Stop all the people and the manager.
+     */
+    public void shutdown() {
+        this.executor.shutdownNow();
+        this.passengers.clear();
+    }
+
+    /**
+     * Wait the end of the people after the shutdown.
+     *
+     * @param timeout Maximum time to wait in milliseconds.
+     * @return True if all the people ended.
+     * @throws InterruptedException Interrupted while waiting.
+     */
+    public boolean awaitTermination(long timeout) throws InterruptedException {
+        return this.executor.awaitTermination(timeout, TimeUnit.MILLISECONDS);
+    }
+
+    // --------------------------------------------------------------------------- Static Components
+
+    /**
+     * Create an executor with a virtual thread for every task, if the java runtime has them.
+     *
+     * @return Virtual threads executor, null if not available.
+     */
+    private static ExecutorService virtualExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException | UnsupportedOperationException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Create a factory of daemon threads with a small stack.
+     *
+     * @return Thread factory.
+     */
+    private static ThreadFactory smallStackFactory() {
+        AtomicInteger count = new AtomicInteger();
+
+        return runnable -> {
+            Thread thread = new Thread(null, runnable, "passenger-" + count.incrementAndGet(), STACK_SIZE);
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+}
@@ -21,85 +21,485 @@
  * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
  * THE SOFTWARE.
  */
- 
 package cableway.people;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 /**
- * People set.
+ * People set, a bounded first in first out queue of people that can be filled by many threads.
+ *
+ * <p>The people are stored in slots in order of addition. The next slot, the number of people
+ * and the total weight are packed in a single state, so a person is admitted with a single
+ * compare and set of the state, that checks the maximum people atomically, without locks; then
+ * the person is published in the reserved slot. A removed person leaves an empty slot, the slots
+ * are compacted when the last slot is reached, while the additions wait. Every person knows its
+ * slot, so a person is removed in constant time.</p>
+ *
+ * <p>A people set is handed over to a cabin by sealing it: the seal is set in the state, so after
+ * it no person can be added, and the people already admitted are published before the seal
+ * returns. The seal is removed by clearing the people set.</p>
+ *
+ * <p>State layout: compacting flag (bit 0), next slot (bits 1-15), number of people (bits
+ * 16-29), sealed flag (bit 30), total weight in grams (bits 31-63). The weight admitted for a
+ * person is kept with its slot and subtracted on removal, so the total weight does not drift
+ * after many additions and removals, even if the weight of a person changes in the meantime.</p>
  *
  * @author giuliobosco
- * @version 1.0.2
+ * @version 2.3
  */
 public class PeopleSet {
     // ------------------------------------------------------------------------------------ Costants
+
+    /**
+     * Maximum of the maximum people in a people set.
+     */
+    public static final int MAX_CAPACITY = (1 << 14) - 1;
+
+    /**
+     * Grams in a weight unit.
+     */
+    private static final double GRAMS = 1000;
+
+    /**
+     * Compacting flag of the state.
+     */
+    private static final long COMPACTING = 1;
+
+    /**
+     * Sealed flag of the state.
+     */
+    private static final long SEALED = 1L << 30;
+
+    /**
+     * Shift of the next slot in the state.
+     */
+    private static final int TAIL_SHIFT = 1;
+
+    /**
+     * Shift of the number of people in the state.
+     */
+    private static final int COUNT_SHIFT = 16;
+
+    /**
+     * Shift of the total weight in the state.
+     */
+    private static final int WEIGHT_SHIFT = 31;
+
+    /**
+     * Mask of the next slot, after the shift.
+     */
+    private static final long TAIL_MASK = (1 << 15) - 1;
+
+    /**
+     * Mask of the number of people, after the shift.
+     */
+    private static final long COUNT_MASK = (1 << 14) - 1;
+
+    /**
+     * Maximum total weight in grams, the weight field of the state.
+     */
+    private static final long MAX_GRAMS = 1L << (Long.SIZE - WEIGHT_SHIFT);
+
+    /**
+     * Removed person slot.
+     */
+    private static final Object REMOVED = new Object();
+
     // ---------------------------------------------------------------------------------- Attributes
 
     /**
-     * People of the people set.
+     * Slots of the people, in order of addition: a person, {@link #REMOVED}, or null if the slot
+     * is free or reserved and not yet published.
      */
-    private List<Person> people;
+    private final AtomicReferenceArray<Object> slots;
+
+    /**
+     * Weight in grams admitted for the person of every slot.
+     */
+    private final AtomicLongArray admitted;
+
+    /**
+     * Packed state: compacting flag, next slot, number of people and total weight.
+     */
+    private final AtomicLong state;
 
     /**
      * Maximum people in the people set.
      */
-    private int maxPeople;
+    private final int maxPeople;
 
     // --------------------------------------------------------------------------- Getters & Setters
 
     /**
-     * Get the people of the people set.
+     * Get a snapshot of the people of the people set, in order of addition.
      *
-     * @return People of the people set.
+     * @return People of the people set, read only.
      */
     public List<Person> getPeople() {
-        return this.people;
+        while (true) {
+            long state = this.state.get();
+            List<Person> people = new ArrayList<>(count(state));
+
+            if (this.collect(state, people)) {
+                return Collections.unmodifiableList(people);
+            }
+        }
+    }
+
+    /**
+     * Get the number of people in the people set.
+     *
+     * @return Number of people.
+     */
+    public int size() {
+        return count(this.state.get());
+    }
+
+    /**
+     * Is the people set sealed, handed over to a cabin.
+     *
+     * @return True if no more people can be added.
+     */
+    public boolean isSealed() {
+        return (this.state.get() & SEALED) != 0;
     }
 
+    /**
+     * Get the maximum people in the people set.
+     *
+     * @return Maximum people.
+     */
+    public int getMaxPeople() {
+        return this.maxPeople;
+    }
 
     // -------------------------------------------------------------------------------- Constructors
 
     /**
-     * Create the people set with the maximum people in the people set and initialize the people
-     * list.
+     * Create the people set with the maximum people in the people set.
      *
-     * @param maxPeople Maximum people in the people set.
-     * @throws FullSetException Not enough people for the maximum people set.
+     * @param maxPeople Maximum people in the people set, at most {@link #MAX_CAPACITY}.
+     * @throws FullSetException Not enough people for the maximum people set, or too many.
      */
     public PeopleSet(int maxPeople) throws FullSetException {
-        if (maxPeople > 0) {
-            this.maxPeople = maxPeople;
-            this.people = new ArrayList<>();
-        } else {
+        if (maxPeople <= 0) {
             throw new FullSetException("Not enough people for maximum people.");
         }
+        if (maxPeople > MAX_CAPACITY) {
+            throw new FullSetException("Too many people for maximum people.");
+        }
+
+        this.maxPeople = maxPeople;
+        this.slots = new AtomicReferenceArray<>(maxPeople * 2);
+        this.admitted = new AtomicLongArray(maxPeople * 2);
+        this.state = new AtomicLong();
     }
 
     // -------------------------------------------------------------------------------- Help Methods
 
     /**
-     * Add person to the people set.
+     * Get the next slot of a state.
+     *
+     * @param state State.
+     * @return Next slot.
+     */
+    private static int tail(long state) {
+        return (int) ((state >>> TAIL_SHIFT) & TAIL_MASK);
+    }
+
+    /**
+     * Get the number of people of a state.
+     *
+     * @param state State.
+     * @return Number of people.
+     */
+    private static int count(long state) {
+        return (int) ((state >>> COUNT_SHIFT) & COUNT_MASK);
+    }
+
+    /**
+     * Get the total weight of a state.
+     *
+     * @param state State.
+     * @return Total weight in grams.
+     */
+    private static long grams(long state) {
+        return state >>> WEIGHT_SHIFT;
+    }
+
+    /**
+     * Pack a state.
+     *
+     * @param tail  Next slot.
+     * @param count Number of people.
+     * @param grams Total weight in grams.
+     * @return State, without compacting flag.
+     */
+    private static long pack(int tail, int count, long grams) {
+        return ((long) tail << TAIL_SHIFT) | ((long) count << COUNT_SHIFT) | (grams << WEIGHT_SHIFT);
+    }
+
+    /**
+     * Convert a weight to grams.
+     *
+     * @param weight Weight.
+     * @return Weight in grams.
+     */
+    private static long toGrams(double weight) {
+        return Math.round(weight * GRAMS);
+    }
+
+    /**
+     * Convert the weight of a person to grams, check it fits in the state.
+     *
+     * @param weight Weight of the person.
+     * @return Weight in grams.
+     * @throws IllegalArgumentException Weight negative, not a number or too big for a people set.
+     */
+    private static long personGrams(double weight) {
+        if (!(weight >= 0 && weight * GRAMS < MAX_GRAMS)) {
+            throw new IllegalArgumentException("Wrong weight of the person: " + weight);
+        }
+
+        return toGrams(weight);
+    }
+
+    /**
+     * Wait the person reserving a slot to publish it.
+     *
+     * @param slot Slot.
+     * @return Content of the slot, a person or {@link #REMOVED}.
+     */
+    private Object awaitPublished(int slot) {
+        Object value;
+        while ((value = this.slots.get(slot)) == null) {
+            Thread.onSpinWait();
+        }
+        return value;
+    }
+
+    /**
+     * Collect the people of the slots of a state.
+     *
+     * @param state  State read before collecting.
+     * @param people List where to collect the people.
+     * @return True if the collected people are consistent with the state, false if the slots were
+     * compacted or cleared while collecting.
+     */
+    private boolean collect(long state, List<Person> people) {
+        if ((state & COMPACTING) != 0) {
+            Thread.onSpinWait();
+            return false;
+        }
+
+        for (int i = 0; i < tail(state); i++) {
+            Object value = this.slots.get(i);
+
+            while (value == null) {
+                long current = this.state.get();
+                if ((current & COMPACTING) != 0 || tail(current) <= i) {
+                    return false;
+                }
+                Thread.onSpinWait();
+                value = this.slots.get(i);
+            }
+
+            if (value != REMOVED) {
+                people.add((Person) value);
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Stop the additions, setting the compacting flag, and wait the reserved slots to be
+     * published. Must be called holding the monitor of the people set.
+     *
+     * @return State when the additions stopped, without compacting flag.
+     */
+    private long stopAdditions() {
+        long state;
+        do {
+            state = this.state.get();
+        } while (!this.state.compareAndSet(state, state | COMPACTING));
+
+        for (int i = 0; i < tail(state); i++) {
+            this.awaitPublished(i);
+        }
+
+        return state;
+    }
+
+    /**
+     * Compact the slots, moving the people over the removed slots, keeping the order.
+     *
+     * @return True if the slots were compacted, false if the people set is full or the slots were
+     * already compacted.
+     */
+    private synchronized boolean compact() {
+        long state = this.state.get();
+        if ((state & COMPACTING) != 0 || tail(state) < this.slots.length() || count(state) == this.maxPeople) {
+            return false;
+        }
+
+        state = this.stopAdditions();
+        int tail = 0;
+        for (int i = 0; i < tail(state); i++) {
+            Object value = this.slots.get(i);
+            if (value != REMOVED) {
+                ((Person) value).setSlot(tail);
+                this.admitted.set(tail, this.admitted.get(i));
+                this.slots.set(tail++, value);
+            }
+        }
+        for (int i = tail; i < tail(state); i++) {
+            this.slots.set(i, null);
+        }
+
+        this.state.set(pack(tail, count(state), grams(state)) | (state & SEALED));
+        return true;
+    }
+
+    // ----------------------------------------------------------------------------- General Methods
+
+    /**
+     * Add person to the people set, after the people already in it. The seat and the weight are
+     * reserved with a single compare and set of the state, so the limits are never overshot.
+     *
+     * @param person     Person to add.
+     * @param maxGrams   Maximum total weight in grams, the total weight must stay smaller.
+     * @param ignoreSeal Add the person also if the people set is sealed.
+     * @throws FullSetException         No more people can be added to the people set, or the
+     *                                  weight of the person is over the maximum total weight.
+     * @throws SealedSetException       The people set is sealed.
+     * @throws IllegalArgumentException Weight of the person negative or too big.
+     */
+    private void add(Person person, long maxGrams, boolean ignoreSeal) throws FullSetException {
+        long grams = personGrams(person.getWeight());
+        maxGrams = Math.min(maxGrams, MAX_GRAMS);
+
+        while (true) {
+            long state = this.state.get();
+            int tail = tail(state);
+
+            if ((state & COMPACTING) != 0) {
+                Thread.onSpinWait();
+            } else if ((state & SEALED) != 0 && !ignoreSeal) {
+                throw new SealedSetException("The people set is sealed, handed over to a cabin.");
+            } else if (count(state) >= this.maxPeople) {
+                throw new FullSetException("No more people can be added to the people set.");
+            } else if (grams(state) + grams >= maxGrams) {
+                throw new FullSetException("The weight of the person is over the free weight of the people set.");
+            } else if (tail == this.slots.length()) {
+                this.compact();
+            } else if (this.state.compareAndSet(state, pack(tail + 1, count(state) + 1, grams(state) + grams) | (state & SEALED))) {
+                person.setSlot(tail);
+                this.admitted.set(tail, grams);
+                this.slots.set(tail, person);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Add person to the people set, after the people already in it.
      *
      * @param person Person to add.
-     * @throws FullSetException No more people can be added to the people set.
+     * @throws FullSetException   No more people can be added to the people set.
+     * @throws SealedSetException The people set is sealed.
      */
     public void addPerson(Person person) throws FullSetException {
-        if (this.people.size() < this.maxPeople) {
-            this.people.add(person);
-        } else {
-            throw new FullSetException("No more people can be added to the people set.");
+        this.add(person, Long.MAX_VALUE, false);
+    }
+
+    /**
+     * Add person to the people set, if the total weight stays smaller than a maximum weight.
+     *
+     * @param person    Person to add.
+     * @param maxWeight Maximum total weight.
+     * @throws FullSetException   No more people can be added to the people set, or the weight of
+     *                            the person is over the maximum weight.
+     * @throws SealedSetException The people set is sealed.
+     */
+    public void addPerson(Person person, double maxWeight) throws FullSetException {
+        this.add(person, toGrams(maxWeight), false);
+    }
+
+    /**
+     * Board a person in the people set of a cabin, if the total weight stays smaller than a
+     * maximum weight. The person is added also if the people set is sealed: the seal closes the
+     * queue of the station, not the doors of the cabin.
+     *
+     * @param person    Person to board.
+     * @param maxWeight Maximum total weight.
+     * @throws FullSetException No more people can be added to the people set, or the weight of the
+     *                          person is over the maximum weight.
+     */
+    public void board(Person person, double maxWeight) throws FullSetException {
+        this.add(person, toGrams(maxWeight), true);
+    }
+
+    /**
+     * Find the slot of a person.
+     *
+     * @param person Person to find.
+     * @return Slot of the person, -1 if the person is not in the people set.
+     */
+    private int slotOf(Person person) {
+        int tail = tail(this.state.get());
+        int slot = person.getSlot();
+
+        if (slot >= 0 && slot < tail && this.slots.get(slot) == person) {
+            return slot;
+        }
+
+        for (int i = 0; i < tail; i++) {
+            if (this.slots.get(i) == person) {
+                return i;
+            }
         }
+
+        return -1;
     }
 
     /**
-     * Remove person from the people set.
+     * Remove person from the people set, in constant time using the slot of the person. The weight
+     * admitted for the person is subtracted from the total weight. The slot stays empty until the
+     * slots are compacted.
      *
      * @param person Person to remove
      */
-    public void removePerson(Person person) {
-        this.people.remove(person);
+    public synchronized void removePerson(Person person) {
+        int slot = this.slotOf(person);
+
+        if (slot >= 0 && this.slots.compareAndSet(slot, person, REMOVED)) {
+            long grams = this.admitted.get(slot);
+            long state;
+            do {
+                state = this.state.get();
+            } while (!this.state.compareAndSet(state, state - (1L << COUNT_SHIFT) - (grams << WEIGHT_SHIFT)));
+        }
+    }
+
+    /**
+     * Seal the people set, no more people can be added. When the seal returns, the people
+     * admitted before it are published in the people set.
+     */
+    public synchronized void seal() {
+        long state;
+        do {
+            state = this.state.get();
+        } while (!this.state.compareAndSet(state, state | SEALED));
+
+        for (int i = 0; i < tail(state); i++) {
+            this.awaitPublished(i);
+        }
     }
 
     /**
@@ -108,7 +508,7 @@ public class PeopleSet {
      * @return People set is full, true if the people set is full else false.
      */
     public boolean isFull() {
-        return this.people.size()==this.maxPeople;
+        return this.size() == this.maxPeople;
     }
 
     /**
@@ -117,17 +517,22 @@ public class PeopleSet {
      * @return True if people set is empty, else false.
      */
     public boolean isEmpty() {
-        return this.people.size()==0;
+        return this.size() == 0;
     }
 
     /**
-     * Empty the people list.
+     * Empty the people list and remove the seal. The additions running while clearing wait and
+     * then are added to the empty people set.
      */
-    public void clear() {
-        this.people.clear();
-    }
+    public synchronized void clear() {
+        long state = this.stopAdditions();
 
-    // ----------------------------------------------------------------------------- General Methods
+        for (int i = 0; i < tail(state); i++) {
+            this.slots.set(i, null);
+        }
+
+        this.state.set(0);
+    }
 
     /**
      * Get the sum of the weight of all people in the people set.
@@ -135,15 +540,9 @@ public class PeopleSet {
      * @return Sum of the weight of all people in the people set.
      */
     public double getTotalWeight() {
-        double weight = 0;
-
-        for (Person person : this.people) {
-            weight += person.getWeight();
-        }
-
-        return weight;
+        return grams(this.state.get()) / GRAMS;
     }
 
     // --------------------------------------------------------------------------- Static Components
-    
+
 }
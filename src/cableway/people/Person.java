@@ -29,14 +29,15 @@ import cableway.station.Station;
 import help.Random;
 
 import java.util.Date;
+import java.util.concurrent.locks.LockSupport;
 
 /**
  * Class for represent a person.
  *
  * @author giuliobosco
- * @version 1.0
+ * @version 1.1
  */
-public class Person extends Thread {
+public class Person implements Runnable {
     // ------------------------------------------------------------------------------------ Costants
 
     /**
@@ -49,6 +50,16 @@ public class Person extends Thread {
      */
     private static final double MAX_WEIGHT = 200;
 
+    /**
+     * Mean weight of a random person.
+     */
+    private static final double MEAN_WEIGHT = 75;
+
+    /**
+     * Standard deviation of the weight of a random person.
+     */
+    private static final double WEIGHT_DEVIATION = 15;
+
     // ---------------------------------------------------------------------------------- Attributes
 
     /**
@@ -84,7 +95,27 @@ public class Person extends Thread {
     /**
      * Person is blocked in People set.
      */
-    private boolean blocked;
+    private volatile boolean blocked;
+
+    /**
+     * Thread waiting the person to be blocked, null if nobody is waiting.
+     */
+    private volatile Thread waiter;
+
+    /**
+     * Crowd of the person, if the person is a view on a crowd passenger, else null.
+     */
+    private final Crowd crowd;
+
+    /**
+     * Passenger number in the crowd, -1 if the person is not a crowd view.
+     */
+    private final int crowdIndex;
+
+    /**
+     * Slot of the person in its people set.
+     */
+    private volatile int slot;
 
     // --------------------------------------------------------------------------- Getters & Setters
 
@@ -113,7 +144,11 @@ public class Person extends Thread {
      */
     public void setWeight(double weight) {
         if (weight > MIN_WEIGHT && weight < MAX_WEIGHT) {
-            this.weight = weight;
+            if (this.crowd != null) {
+                this.crowd.setWeight(this.crowdIndex, weight);
+            } else {
+                this.weight = weight;
+            }
         }
     }
 
@@ -123,7 +158,7 @@ public class Person extends Thread {
      * @return Person weight.
      */
     public double getWeight() {
-        return this.weight;
+        return this.crowd != null ? this.crowd.getWeight(this.crowdIndex) : this.weight;
     }
 
     /**
@@ -163,12 +198,18 @@ public class Person extends Thread {
     }
 
     /**
-     * Set the person is blocked in People set.
+     * Set the person is blocked in People set, the thread waiting the person to be blocked is
+     * woken up.
      *
      * @param blocked Person is blocked in People set.
      */
     public void setBlocked(boolean blocked) {
         this.blocked = blocked;
+
+        Thread waiter = this.waiter;
+        if (blocked && waiter != null) {
+            LockSupport.unpark(waiter);
+        }
     }
 
     /**
@@ -180,6 +221,42 @@ public class Person extends Thread {
         return this.blocked;
     }
 
+    /**
+     * Get the crowd of the person.
+     *
+     * @return Crowd of the person, null if the person is not a crowd view.
+     */
+    public Crowd getCrowd() {
+        return this.crowd;
+    }
+
+    /**
+     * Get the passenger number of the person in its crowd.
+     *
+     * @return Passenger number, -1 if the person is not a crowd view.
+     */
+    public int getCrowdIndex() {
+        return this.crowdIndex;
+    }
+
+    /**
+     * Get the slot of the person in its people set.
+     *
+     * @return Slot of the person.
+     */
+    int getSlot() {
+        return this.slot;
+    }
+
+    /**
+     * Set the slot of the person in its people set, set by the people set.
+     *
+     * @param slot Slot of the person.
+     */
+    void setSlot(int slot) {
+        this.slot = slot;
+    }
+
     // -------------------------------------------------------------------------------- Constructors
 
     /**
@@ -195,6 +272,21 @@ public class Person extends Thread {
         this.lastName = lastName;
         this.weight = weight;
         this.bornDate = bornDate;
+        this.crowd = null;
+        this.crowdIndex = -1;
+    }
+
+    /**
+     * Create the person as a view on a crowd passenger, no first and last name, no date.
+     *
+     * @param crowd      Crowd of the passenger.
+     * @param crowdIndex Passenger number in the crowd.
+     */
+    Person(Crowd crowd, int crowdIndex) {
+        this.firstName = "";
+        this.lastName = "";
+        this.crowd = crowd;
+        this.crowdIndex = crowdIndex;
     }
 
     /**
@@ -215,34 +307,74 @@ public class Person extends Thread {
     // ----------------------------------------------------------------------------- General Methods
 
     /**
-     * Run the person life.
+     * Wait the person to be blocked in the cabin. The waiting thread is parked, without using the
+     * CPU, until {@link #setBlocked(boolean)} wakes it up.
+     *
+     * @throws InterruptedException Interrupted while waiting.
      */
-    @Override
-    public void run() {
-        while (this.isInterrupted()) {
-            try {
-                if (this.station.getFreeGate().open(this.skipass)) {
-                    this.station.getInPeople().addPerson(this);
+    public void awaitBlocked() throws InterruptedException {
+        this.waiter = Thread.currentThread();
 
-                    while (!this.isBlocked()) Thread.sleep(300);
+        try {
+            while (!this.isBlocked()) {
+                LockSupport.park(this);
 
-                    this.interrupt();
+                if (Thread.interrupted()) {
+                    throw new InterruptedException();
                 }
-            } catch (FullSetException | InterruptedException ignore) {
+            }
+        } finally {
+            this.waiter = null;
+        }
+    }
 
+    /**
+     * Run the person life: pass a gate, enter the station, parked while the station is full, and
+     * wait to be blocked in the cabin. A person with a rejected skipass leaves. Run it with a
+     * {@link PassengerManager}.
+     */
+    @Override
+    public void run() {
+        try {
+            if (this.station.getFreeGate().open(this.skipass)) {
+                this.station.enter(this);
+                this.awaitBlocked();
             }
+        } catch (InterruptedException ignore) {
+
         }
     }
 
     // --------------------------------------------------------------------------- Static Components
 
+    /**
+     * Get a random weight of a person, normally distributed around the mean weight and
+     * truncated to the valid weights.
+     *
+     * @param random Random stream.
+     * @return Random weight.
+     */
+    public static double getRandomWeight(Random random) {
+        return random.nextTruncatedNormal(MEAN_WEIGHT, WEIGHT_DEVIATION, MIN_WEIGHT, MAX_WEIGHT);
+    }
+
+    /**
+     * Get an random person, no first and last name, no date, only random weight.
+     *
+     * @param random Random stream.
+     * @return Random person.
+     */
+    public static Person getRandomPerson(Random random) {
+        return new Person("", "", getRandomWeight(random), new Date());
+    }
+
     /**
      * Get an random person, no first and last name, no date, only random weight.
      *
      * @return Random person.
      */
     public static Person getRandomPerson() {
-        return new Person("", "", Random.getDouble(MIN_WEIGHT, MAX_WEIGHT), new Date());
+        return getRandomPerson(Random.current());
     }
 
 }
@@ -0,0 +1,282 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2018 giuliobosco.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package cableway.people.skypass;
+
+import java.util.Arrays;
+import java.util.function.LongConsumer;
+
+/**
+ * Hierarchical timing wheel of the skipasses expiries. Every level has {@link #SLOTS} slots, a
+ * slot of a level covers all the slots of the level below, so the wheel covers
+ * {@link #SLOTS}^{@link #LEVELS} ticks; farther expiries wait in an overflow slot.
+ * Adding an expiry and expiring it are O(1), an expiry is moved down at most once per level. The
+ * slots keep the identifiers in primitive arrays, no object is created for an expiry.
+ * The wheel is not thread safe, the owner must serialize the calls.
+ *
+ * @author giuliobosco
+ * @version 1.0
+ */
+public class ExpiryWheel {
+    // ------------------------------------------------------------------------------------ Costants
+
+    /**
+     * Bits of the slot index of a level.
+     */
+    private static final int SLOT_BITS = 6;
+
+    /**
+     * Slots of a level.
+     */
+    public static final int SLOTS = 1 << SLOT_BITS;
+
+    /**
+     * Levels of the wheel.
+     */
+    public static final int LEVELS = 4;
+
+    /**
+     * Initial capacity of a slot.
+     */
+    private static final int SLOT_CAPACITY = 4;
+
+    // ---------------------------------------------------------------------------------- Attributes
+
+    /**
+     * Duration of a tick in milliseconds.
+     */
+    private final long tickMillis;
+
+    /**
+     * Current tick.
+     */
+    private long currentTick;
+
+    /**
+     * Skipasses identifiers of the slots, [level * SLOTS + slot].
+     */
+    private final long[][] ids;
+
+    /**
+     * Expiry ticks of the slots, [level * SLOTS + slot].
+     */
+    private final long[][] ticks;
+
+    /**
+     * Number of expiries in the slots, [level * SLOTS + slot].
+     */
+    private final int[] sizes;
+
+    /**
+     * Index of the overflow slot, expiries beyond the last level.
+     */
+    private final int overflow;
+
+    /**
+     * Number of expiries in the wheel.
+     */
+    private int size;
+
+    // --------------------------------------------------------------------------- Getters & Setters
+
+    /**
+     * Get the duration of a tick in milliseconds.
+     *
+     * @return Duration of a tick in milliseconds.
+     */
+    public long getTickMillis() {
+        return this.tickMillis;
+    }
+
+    /**
+     * Get the time of the next tick in milliseconds, the wheel has nothing to expire before.
+     *
+     * @return Time of the next tick in milliseconds.
+     */
+    public long getNextTickTime() {
+        return (this.currentTick + 1) * this.tickMillis;
+    }
+
+    /**
+     * Get the number of expiries in the wheel.
+     *
+     * @return Number of expiries in the wheel.
+     */
+    public int size() {
+        return this.size;
+    }
+
+    // -------------------------------------------------------------------------------- Constructors
+
+    /**
+     * Create the wheel with the duration of a tick, starting at a time.
+     *
+     * @param tickMillis Duration of a tick in milliseconds.
+     * @param now        Start time in milliseconds.
+     */
+    public ExpiryWheel(long tickMillis, long now) {
+        if (tickMillis <= 0) {
+            throw new IllegalArgumentException("Tick must be longer than 0.");
+        }
+
+        this.tickMillis = tickMillis;
+        this.currentTick = Math.floorDiv(now, tickMillis);
+        this.overflow = LEVELS * SLOTS;
+        this.ids = new long[this.overflow + 1][];
+        this.ticks = new long[this.overflow + 1][];
+        this.sizes = new int[this.overflow + 1];
+    }
+
+    // -------------------------------------------------------------------------------- Help Methods
+
+    /**
+     * Get the slot of an expiry tick, relative to the current tick.
+     *
+     * @param tick Expiry tick, after the current tick.
+     * @return Slot index.
+     */
+    private int slotOf(long tick) {
+        for (int level = 0; level < LEVELS; level++) {
+            int shift = SLOT_BITS * (level + 1);
+
+            if ((tick >>> shift) == (this.currentTick >>> shift)) {
+                return level * SLOTS + (int) ((tick >>> (SLOT_BITS * level)) & (SLOTS - 1));
+            }
+        }
+
+        return this.overflow;
+    }
+
+    /**
+     * Append an expiry to a slot.
+     *
+     * @param slot Slot index.
+     * @param id   Skipass identifier.
+     * @param tick Expiry tick.
+     */
+    private void append(int slot, long id, long tick) {
+        int size = this.sizes[slot];
+
+        if (this.ids[slot] == null) {
+            this.ids[slot] = new long[SLOT_CAPACITY];
+            this.ticks[slot] = new long[SLOT_CAPACITY];
+        } else if (size == this.ids[slot].length) {
+            this.ids[slot] = Arrays.copyOf(this.ids[slot], size * 2);
+            this.ticks[slot] = Arrays.copyOf(this.ticks[slot], size * 2);
+        }
+
+        this.ids[slot][size] = id;
+        this.ticks[slot][size] = tick;
+        this.sizes[slot] = size + 1;
+    }
+
+    /**
+     * Empty a slot and add again its expiries, relative to the current tick.
+     *
+     * @param slot    Slot index.
+     * @param expired Consumer of the expired skipasses.
+     */
+    private void cascade(int slot, LongConsumer expired) {
+        int count = this.sizes[slot];
+
+        if (count > 0) {
+            long[] ids = this.ids[slot];
+            long[] ticks = this.ticks[slot];
+            this.ids[slot] = null;
+            this.ticks[slot] = null;
+            this.sizes[slot] = 0;
+            this.size -= count;
+
+            for (int i = 0; i < count; i++) {
+                this.add(ids[i], ticks[i], expired);
+            }
+        }
+    }
+
+    /**
+     * Add an expiry, expire it now if the tick is not after the current tick.
+     *
+     * @param id      Skipass identifier.
+     * @param tick    Expiry tick.
+     * @param expired Consumer of the expired skipasses.
+     */
+    private void add(long id, long tick, LongConsumer expired) {
+        if (tick <= this.currentTick) {
+            expired.accept(id);
+        } else {
+            this.append(this.slotOf(tick), id, tick);
+            this.size++;
+        }
+    }
+
+    // ----------------------------------------------------------------------------- General Methods
+
+    /**
+     * Schedule the expiry of a skipass, at the first tick not before the expiry time. An expiry
+     * not after the current tick is returned to the consumer immediately.
+     *
+     * @param id      Skipass identifier.
+     * @param time    Expiry time in milliseconds.
+     * @param expired Consumer of the expired skipasses.
+     */
+    public void schedule(long id, long time, LongConsumer expired) {
+        this.add(id, -Math.floorDiv(-time, this.tickMillis), expired);
+    }
+
+    /**
+     * Advance the wheel to a time, expire all the skipasses with the expiry tick up to the time.
+     *
+     * @param now     Current time in milliseconds.
+     * @param expired Consumer of the expired skipasses.
+     */
+    public void advance(long now, LongConsumer expired) {
+        long target = Math.floorDiv(now, this.tickMillis);
+
+        while (this.currentTick < target) {
+            if (this.size == 0) {
+                this.currentTick = target;
+                break;
+            }
+
+            this.currentTick++;
+
+            for (int level = LEVELS; level > 0; level--) {
+                long mask = (1L << (SLOT_BITS * level)) - 1;
+
+                if ((this.currentTick & mask) == 0) {
+                    if (level == LEVELS) {
+                        this.cascade(this.overflow, expired);
+                    } else {
+                        this.cascade(level * SLOTS + (int) ((this.currentTick >>> (SLOT_BITS * level)) & (SLOTS - 1)), expired);
+                    }
+                }
+            }
+
+            this.cascade((int) (this.currentTick & (SLOTS - 1)), expired);
+        }
+    }
+
+    // --------------------------------------------------------------------------- Static Components
+
+}
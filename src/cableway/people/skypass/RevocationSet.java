@@ -0,0 +1,249 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2018 giuliobosco.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package cableway.people.skypass;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Set of the revoked skipasses, fronted by a Bloom filter. The filter answers the common case,
+ * skipass not revoked, reading a few words of memory; only the possible hits are checked in the
+ * authoritative set.
+ * The filter is updated incrementally on every revocation and rebuilt only when too many
+ * skipasses have been restored or the set outgrows it. Reads are lock free, writes are
+ * serialized.
+ *
+ * @author giuliobosco
+ * @version 1.0
+ */
+public class RevocationSet {
+    // ------------------------------------------------------------------------------------ Costants
+
+    /**
+     * Bits of the filter for every expected revoked skipass, about 1% false positives.
+     */
+    private static final int BITS_PER_ENTRY = 10;
+
+    /**
+     * Number of hash functions of the filter.
+     */
+    private static final int HASHES = 7;
+
+    /**
+     * Minimum number of bits of the filter.
+     */
+    private static final int MIN_BITS = 1 << 10;
+
+    // ---------------------------------------------------------------------------------- Attributes
+
+    /**
+     * Authoritative set of the revoked skipasses identifiers.
+     */
+    private final Set<Long> revoked;
+
+    /**
+     * Bloom filter bits.
+     */
+    private volatile AtomicLongArray filter;
+
+    /**
+     * Number of revoked skipasses the filter is sized for.
+     */
+    private int filterEntries;
+
+    /**
+     * Number of restored skipasses still set in the filter.
+     */
+    private int stale;
+
+    // --------------------------------------------------------------------------- Getters & Setters
+
+    /**
+     * Get the number of revoked skipasses.
+     *
+     * @return Number of revoked skipasses.
+     */
+    public int size() {
+        return this.revoked.size();
+    }
+
+    // -------------------------------------------------------------------------------- Constructors
+
+    /**
+     * Create the revocation set with the expected number of revoked skipasses.
+     *
+     * @param expectedSize Expected number of revoked skipasses.
+     */
+    public RevocationSet(int expectedSize) {
+        this.revoked = ConcurrentHashMap.newKeySet();
+        this.rebuild(expectedSize);
+    }
+
+    /**
+     * Create an empty revocation set.
+     */
+    public RevocationSet() {
+        this(0);
+    }
+
+    // -------------------------------------------------------------------------------- Help Methods
+
+    /**
+     * Set the bits of a skipass in the filter.
+     *
+     * @param filter Filter bits.
+     * @param id     Skipass identifier.
+     */
+    private static void add(AtomicLongArray filter, long id) {
+        long hash = mix(id);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        int mask = filter.length() * Long.SIZE - 1;
+
+        for (int i = 0; i < HASHES; i++) {
+            int bit = (h1 + i * h2) & mask;
+            int index = bit >>> 6;
+            long word = 1L << bit;
+
+            long current = filter.get(index);
+            while ((current & word) == 0 && !filter.compareAndSet(index, current, current | word)) {
+                current = filter.get(index);
+            }
+        }
+    }
+
+    /**
+     * Check the bits of a skipass in the filter.
+     *
+     * @param filter Filter bits.
+     * @param id     Skipass identifier.
+     * @return False if the skipass is surely not in the filter.
+     */
+    private static boolean mightContain(AtomicLongArray filter, long id) {
+        long hash = mix(id);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        int mask = filter.length() * Long.SIZE - 1;
+
+        for (int i = 0; i < HASHES; i++) {
+            int bit = (h1 + i * h2) & mask;
+
+            if ((filter.get(bit >>> 6) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Rebuild the filter from the authoritative set.
+     *
+     * @param entries Number of revoked skipasses to size the filter for.
+     */
+    private void rebuild(int entries) {
+        int bits = MIN_BITS;
+        while (bits < entries * BITS_PER_ENTRY && bits < (1 << 30)) {
+            bits <<= 1;
+        }
+
+        AtomicLongArray filter = new AtomicLongArray(bits / Long.SIZE);
+        for (long id : this.revoked) {
+            add(filter, id);
+        }
+
+        this.filterEntries = Math.max(entries, bits / BITS_PER_ENTRY);
+        this.stale = 0;
+        this.filter = filter;
+    }
+
+    // ----------------------------------------------------------------------------- General Methods
+
+    /**
+     * Revoke a skipass.
+     *
+     * @param id Skipass identifier.
+     */
+    public synchronized void revoke(long id) {
+        if (this.revoked.add(id)) {
+            if (this.revoked.size() > this.filterEntries) {
+                this.rebuild(this.revoked.size() * 2);
+            } else {
+                add(this.filter, id);
+            }
+        }
+    }
+
+    /**
+     * Restore a revoked skipass. The filter is rebuilt when the restored skipasses are more than
+     * the revoked ones.
+     *
+     * @param id Skipass identifier.
+     */
+    public synchronized void restore(long id) {
+        if (this.revoked.remove(id)) {
+            this.stale++;
+
+            if (this.stale > this.revoked.size() && this.stale > MIN_BITS / BITS_PER_ENTRY) {
+                this.rebuild(this.filterEntries);
+            }
+        }
+    }
+
+    /**
+     * Is the skipass revoked.
+     *
+     * @param id Skipass identifier.
+     * @return True if the skipass is revoked.
+     */
+    public boolean isRevoked(long id) {
+        return mightContain(this.filter, id) && this.revoked.contains(id);
+    }
+
+    /**
+     * Restore all the revoked skipasses.
+     */
+    public synchronized void clear() {
+        this.revoked.clear();
+        this.rebuild(0);
+    }
+
+    // --------------------------------------------------------------------------- Static Components
+
+    /**
+     * Mix the bits of the skipass identifier.
+     *
+     * @param id Skipass identifier.
+     * @return 64 bits hash of the identifier.
+     */
+    private static long mix(long id) {
+        long h = id;
+        h = (h ^ (h >>> 33)) * 0xFF51AFD7ED558CCDL;
+        h = (h ^ (h >>> 33)) * 0xC4CEB9FE1A85EC53L;
+        return h ^ (h >>> 33);
+    }
+
+}
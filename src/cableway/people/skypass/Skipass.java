@@ -24,6 +24,8 @@
 
 package cableway.people.skypass;
 
+import java.util.concurrent.atomic.AtomicLong;
+
 /**
  * Cableway skipass.
  *
@@ -43,20 +45,59 @@ public class Skipass {
      */
     private static final boolean DEFAULT_BLUELINE = false;
 
+    /**
+     * Default begin of the validity window, always valid.
+     */
+    private static final long DEFAULT_VALID_FROM = Long.MIN_VALUE;
+
+    /**
+     * Default end of the validity window, always valid.
+     */
+    private static final long DEFAULT_VALID_TO = Long.MAX_VALUE;
+
     // ---------------------------------------------------------------------------------- Attributes
 
+    /**
+     * Skipass identifier, stable for the whole life of the skipass.
+     */
+    private final long id;
+
     /**
      * Skipass valid.
      */
-    private boolean valid;
+    private volatile boolean valid;
 
     /**
      * Skipass has blueline.
      */
-    private boolean blueline;
+    private volatile boolean blueline;
+
+    /**
+     * Begin of the validity window in milliseconds (inclusive).
+     */
+    private volatile long validFrom;
+
+    /**
+     * End of the validity window in milliseconds (exclusive).
+     */
+    private volatile long validTo;
+
+    /**
+     * Skipass manager where the skipass is registered, null if not registered.
+     */
+    private volatile SkipassManager manager;
 
     // --------------------------------------------------------------------------- Getters & Setters
 
+    /**
+     * Get the skipass identifier.
+     *
+     * @return Skipass identifier.
+     */
+    public long getId() {
+        return this.id;
+    }
+
     /**
      * Set the skipass valid.
      *
@@ -64,14 +105,63 @@ public class Skipass {
      */
     public void setValid(boolean valid) {
         this.valid = valid;
+
+        SkipassManager manager = this.manager;
+        if (manager != null) {
+            manager.setValid(this.id, valid);
+        }
     }
 
     /**
-     * Is Skipass valid.
+     * Is Skipass valid, set valid and inside its validity window.
      *
      * @return Skipass valid.
      */
     public boolean isValid() {
+        long now = System.currentTimeMillis();
+        return this.valid && this.validFrom <= now && now < this.validTo;
+    }
+
+    /**
+     * Set the validity window of the skipass, for example a day or an hour.
+     *
+     * @param validFrom Begin of the validity window in milliseconds (inclusive).
+     * @param validTo   End of the validity window in milliseconds (exclusive).
+     */
+    public void setValidity(long validFrom, long validTo) {
+        this.validFrom = validFrom;
+        this.validTo = validTo;
+
+        SkipassManager manager = this.manager;
+        if (manager != null) {
+            manager.setValidity(this.id, validFrom, validTo);
+        }
+    }
+
+    /**
+     * Get the begin of the validity window.
+     *
+     * @return Begin of the validity window in milliseconds (inclusive).
+     */
+    public long getValidFrom() {
+        return this.validFrom;
+    }
+
+    /**
+     * Get the end of the validity window.
+     *
+     * @return End of the validity window in milliseconds (exclusive).
+     */
+    public long getValidTo() {
+        return this.validTo;
+    }
+
+    /**
+     * Is the skipass set valid, without checking the validity window.
+     *
+     * @return Skipass set valid.
+     */
+    boolean isSetValid() {
         return this.valid;
     }
 
@@ -82,6 +172,11 @@ public class Skipass {
      */
     public void setBlueline(boolean blueline) {
         this.blueline = blueline;
+
+        SkipassManager manager = this.manager;
+        if (manager != null) {
+            manager.setBlueline(this.id, blueline);
+        }
     }
 
     /**
@@ -93,17 +188,57 @@ public class Skipass {
         return this.blueline;
     }
 
+    /**
+     * Set the skipass manager where the skipass is registered.
+     *
+     * @param manager Skipass manager, null if not registered.
+     */
+    void setManager(SkipassManager manager) {
+        this.manager = manager;
+    }
+
     // -------------------------------------------------------------------------------- Constructors
 
     /**
-     * Create the skipass with the valid and the blueline.
+     * Create the skipass with the identifier, the valid, the blueline and the validity window.
      *
+     * @param id Skipass identifier, must be bigger than 0.
      * @param valid Skipass valid.
      * @param blueline Skipass has blue line.
+     * @param validFrom Begin of the validity window in milliseconds (inclusive).
+     * @param validTo End of the validity window in milliseconds (exclusive).
      */
-    public Skipass(boolean valid, boolean blueline) {
+    public Skipass(long id, boolean valid, boolean blueline, long validFrom, long validTo) {
+        if (id <= 0) {
+            throw new IllegalArgumentException("Skipass identifier must be bigger than 0.");
+        }
+
+        this.id = id;
         this.valid = valid;
         this.blueline = blueline;
+        this.validFrom = validFrom;
+        this.validTo = validTo;
+    }
+
+    /**
+     * Create the skipass with the identifier, the valid and the blueline, always valid.
+     *
+     * @param id Skipass identifier, must be bigger than 0.
+     * @param valid Skipass valid.
+     * @param blueline Skipass has blue line.
+     */
+    public Skipass(long id, boolean valid, boolean blueline) {
+        this(id, valid, blueline, DEFAULT_VALID_FROM, DEFAULT_VALID_TO);
+    }
+
+    /**
+     * Create the skipass with the valid and the blueline, generate the identifier.
+     *
+     * @param valid Skipass valid.
+     * @param blueline Skipass has blue line.
+     */
+    public Skipass(boolean valid, boolean blueline) {
+        this(nextId(), valid, blueline);
     }
 
     /**
@@ -126,4 +261,18 @@ public class Skipass {
     // ----------------------------------------------------------------------------- General Methods
     // --------------------------------------------------------------------------- Static Components
 
+    /**
+     * Last generated skipass identifier.
+     */
+    private static final AtomicLong lastId = new AtomicLong();
+
+    /**
+     * Generate a new skipass identifier.
+     *
+     * @return New skipass identifier.
+     */
+    private static long nextId() {
+        return lastId.incrementAndGet();
+    }
+
 }
@@ -0,0 +1,250 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2018 giuliobosco.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package cableway.people.skypass;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Skipass file converter, convert a CSV export of skipasses to a pass file that can be mapped by
+ * the {@link SkipassStore}. The CSV is streamed, so the size of the export is not limited by the
+ * memory.
+ *
+ * <p>CSV line format: <code>id,valid,blueline[,validFrom,validTo]</code>, the validity window in
+ * milliseconds. Empty lines, comment lines (starting with #) and a header line before the first
+ * record, made only of field names, are skipped. Every other line must be a record.</p>
+ *
+ * @author giuliobosco
+ * @version 1.2
+ */
+public class SkipassFileConverter {
+    // ------------------------------------------------------------------------------------ Costants
+
+    /**
+     * CSV separator.
+     */
+    private static final char SEPARATOR = ',';
+
+    // ---------------------------------------------------------------------------------- Attributes
+    // --------------------------------------------------------------------------- Getters & Setters
+    // -------------------------------------------------------------------------------- Constructors
+
+    /**
+     * Static converter, no instances.
+     */
+    private SkipassFileConverter() {
+    }
+
+    // -------------------------------------------------------------------------------- Help Methods
+
+    /**
+     * Is the line empty or a comment line.
+     *
+     * @param line CSV line, trimmed.
+     * @return True if the line is empty or starts with #.
+     */
+    private static boolean isBlank(String line) {
+        return line.isEmpty() || line.charAt(0) == '#';
+    }
+
+    /**
+     * Is the line a header line, every field is a field name starting with a letter.
+     *
+     * @param line CSV line, trimmed.
+     * @return True if the line is a header line.
+     */
+    private static boolean isHeader(String line) {
+        int begin = 0;
+
+        for (int i = 0; i <= line.length(); i++) {
+            if (i == line.length() || line.charAt(i) == SEPARATOR) {
+                String field = line.substring(begin, i).trim();
+
+                if (field.isEmpty() || !Character.isLetter(field.charAt(0))) {
+                    return false;
+                }
+                for (int j = 1; j < field.length(); j++) {
+                    if (!Character.isLetterOrDigit(field.charAt(j)) && field.charAt(j) != '_') {
+                        return false;
+                    }
+                }
+                begin = i + 1;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Parse a boolean CSV field, accept true, false, 1 and 0.
+     *
+     * @param field      CSV field.
+     * @param lineNumber Line number, for the error message.
+     * @return Boolean value.
+     * @throws IOException Not a boolean value.
+     */
+    private static boolean parseBoolean(String field, long lineNumber) throws IOException {
+        if (field.equals("1") || field.equalsIgnoreCase("true")) {
+            return true;
+        } else if (field.equals("0") || field.equalsIgnoreCase("false")) {
+            return false;
+        }
+
+        throw new IOException("Wrong boolean at line " + lineNumber + ": " + field);
+    }
+
+    /**
+     * Split a CSV line in its fields.
+     *
+     * @param line       CSV line.
+     * @param lineNumber Line number, for the error message.
+     * @return Fields of the line, 3 or 5 fields.
+     * @throws IOException Wrong number of fields.
+     */
+    private static String[] split(String line, long lineNumber) throws IOException {
+        String[] fields = new String[5];
+        int count = 0;
+        int begin = 0;
+
+        for (int i = 0; i <= line.length(); i++) {
+            if (i == line.length() || line.charAt(i) == SEPARATOR) {
+                if (count == fields.length) {
+                    throw new IOException("Too many fields at line " + lineNumber);
+                }
+                fields[count++] = line.substring(begin, i).trim();
+                begin = i + 1;
+            }
+        }
+
+        if (count != 3 && count != 5) {
+            throw new IOException("Expected 3 or 5 fields at line " + lineNumber + ", found " + count);
+        }
+
+        return fields;
+    }
+
+    /**
+     * Count the skipass records of the CSV file.
+     *
+     * @param csv Path of the CSV file.
+     * @return Number of records.
+     * @throws IOException Error reading the file.
+     */
+    private static int count(Path csv) throws IOException {
+        int count = 0;
+        boolean leading = true;
+
+        try (BufferedReader reader = Files.newBufferedReader(csv, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+
+                if (!isBlank(line)) {
+                    if (!leading || !isHeader(line)) {
+                        count++;
+                    }
+                    leading = false;
+                }
+            }
+        }
+
+        return count;
+    }
+
+    // ----------------------------------------------------------------------------- General Methods
+    // --------------------------------------------------------------------------- Static Components
+
+    /**
+     * Convert a CSV export of skipasses to a pass file. The CSV is read twice, the first time to
+     * size the pass file, the second time to write the records directly in the mapped file.
+     *
+     * @param csv      Path of the CSV file.
+     * @param passFile Path of the pass file.
+     * @return Number of skipasses in the pass file.
+     * @throws IOException Error reading the CSV or writing the pass file, or malformed CSV.
+     */
+    public static int convert(Path csv, Path passFile) throws IOException {
+        SkipassStore store = SkipassStore.create(passFile, count(csv));
+
+        try (BufferedReader reader = Files.newBufferedReader(csv, StandardCharsets.UTF_8)) {
+            String line;
+            long lineNumber = 0;
+            boolean leading = true;
+
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                line = line.trim();
+
+                if (!isBlank(line) && !(leading && isHeader(line))) {
+                    String[] fields = split(line, lineNumber);
+
+                    try {
+                        store.put(
+                                Long.parseLong(fields[0]),
+                                parseBoolean(fields[1], lineNumber),
+                                parseBoolean(fields[2], lineNumber),
+                                fields[3] == null ? SkipassManager.ALWAYS_FROM : Long.parseLong(fields[3]),
+                                fields[4] == null ? SkipassManager.ALWAYS_TO : Long.parseLong(fields[4])
+                        );
+                    } catch (IllegalArgumentException iae) {
+                        throw new IOException("Wrong value at line " + lineNumber + ": " + iae.getMessage());
+                    } catch (IllegalStateException ise) {
+                        throw new IOException("Pass file full at line " + lineNumber + ": " + ise.getMessage());
+                    }
+                }
+
+                leading &= isBlank(line);
+            }
+        }
+
+        store.flush();
+        return store.size();
+    }
+
+    /**
+     * Main method, convert a CSV file to a pass file.
+     *
+     * @param args CSV file path and pass file path.
+     */
+    public static void main(String[] args) {
+        if (args.length != 2) {
+            System.err.println("Usage: SkipassFileConverter <csv file> <pass file>");
+            System.exit(1);
+        }
+
+        try {
+            int size = convert(Paths.get(args[0]), Paths.get(args[1]));
+            System.out.println(size + " skipasses written to " + args[1]);
+        } catch (IOException ioe) {
+            System.err.println(ioe.getMessage());
+            System.exit(1);
+        }
+    }
+
+}
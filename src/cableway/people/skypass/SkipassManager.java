@@ -24,61 +24,299 @@
  
 package cableway.people.skypass;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.BitSet;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.IntStream;
 
 /**
- * 
+ * Skipass manager, registry of the skipasses indexed by the skipass identifier. The skipasses are
+ * kept as packed records in an off-heap {@link SkipassStore}, the manager does not keep the
+ * skipass objects. Safe to use from many gates at the same time while skipasses are added and
+ * removed.
+ * The validation reads the store only: a revoked skipass has the valid flag cleared in its
+ * record, so a single lookup answers every swipe. The revoked skipasses (set not valid) are also
+ * kept in a {@link RevocationSet}, fronted by a Bloom filter, to answer {@link #isRevoked(long)}
+ * without reading the store. The removed and the expired skipasses are not revoked, the store
+ * rejects them by themselves.
+ * The skipasses with a validity window are expired in bulk at the end of the window by an
+ * {@link ExpiryWheel}, advanced by a periodic task on the scheduler of the manager, so the
+ * validations never advance it. An expired skipass is marked expired in the store, its valid flag
+ * is not changed and it is not revoked, so a new validity window makes it valid again.
+ *
  * @author giuliobosco
- * @version 1.0
+ * @version 1.10
  */
 public class SkipassManager {
     // ------------------------------------------------------------------------------------ Costants
+
+    /**
+     * Default begin of the validity window, always valid.
+     */
+    public static final long ALWAYS_FROM = Long.MIN_VALUE;
+
+    /**
+     * Default end of the validity window, always valid.
+     */
+    public static final long ALWAYS_TO = Long.MAX_VALUE;
+
+    /**
+     * Minimum batch size validated in parallel, smaller batches are validated by the caller
+     * thread.
+     */
+    public static final int PARALLEL_THRESHOLD = 4096;
+
+    /**
+     * Resolution of the expiry wheel, 1 second.
+     */
+    public static final long EXPIRY_TICK = 1000;
+
     // ---------------------------------------------------------------------------------- Attributes
 
     /**
-     * List of the skipasses.
+     * Off-heap store of the skipasses.
+     */
+    private SkipassStore store;
+
+    /**
+     * Revoked skipasses.
      */
-    private List<Skipass> skipasses;
+    private RevocationSet revocations;
+
+    /**
+     * Expiries of the skipasses with a validity window.
+     */
+    private ExpiryWheel expiries;
+
+    /**
+     * Lock of the expiry wheel.
+     */
+    private final ReentrantLock expiryLock = new ReentrantLock();
+
+    /**
+     * Periodic expiry task on the scheduler, null if the skipasses are expired only by hand.
+     */
+    private ScheduledFuture<?> expiryTask;
 
     // --------------------------------------------------------------------------- Getters & Setters
 
     /**
-     * Add skipass to the skipasses list.
+     * Add skipass to the skipasses registry, the changes to the skipass will be written to the
+     * registry.
      *
      * @param skipass Skipass to add.
      */
     public void addSkipass(Skipass skipass) {
-        this.skipasses.add(skipass);
+        this.addSkipass(skipass.getId(), skipass.isSetValid(), skipass.isBlueline(),
+                skipass.getValidFrom(), skipass.getValidTo());
+        skipass.setManager(this);
+    }
+
+    /**
+     * Add skipass to the skipasses registry, without a skipass object.
+     *
+     * @param id        Skipass identifier.
+     * @param valid     Skipass valid.
+     * @param blueline  Skipass has blue line.
+     * @param validFrom Begin of the validity window in milliseconds (inclusive).
+     * @param validTo   End of the validity window in milliseconds (exclusive).
+     */
+    public void addSkipass(long id, boolean valid, boolean blueline, long validFrom, long validTo) {
+        this.store.put(id, valid, blueline, validFrom, validTo);
+
+        if (valid) {
+            this.revocations.restore(id);
+        } else {
+            this.revocations.revoke(id);
+        }
+
+        this.scheduleExpiry(id, validTo);
     }
 
     /**
-     * Remove skipass from the skipasses list.
+     * Remove skipass from the skipasses registry.
      *
      * @param skipass Skipass to remove.
      */
     public void removeSkipass(Skipass skipass) {
-        this.skipasses.remove(skipass);
+        this.removeSkipass(skipass.getId());
+        skipass.setManager(null);
+    }
+
+    /**
+     * Remove skipass from the skipasses registry.
+     *
+     * @param id Skipass identifier.
+     */
+    public void removeSkipass(long id) {
+        this.store.remove(id);
+        this.revocations.restore(id);
     }
 
     /**
-     * Clear the list of skipasses.
+     * Set the skipass valid in the registry.
+     *
+     * @param id    Skipass identifier.
+     * @param valid Skipass valid.
+     */
+    public void setValid(long id, boolean valid) {
+        if (valid) {
+            this.store.setFlag(id, SkipassStore.VALID, true);
+            this.revocations.restore(id);
+        } else {
+            this.revocations.revoke(id);
+            this.store.setFlag(id, SkipassStore.VALID, false);
+        }
+    }
+
+    /**
+     * Set the skipass blue line in the registry.
+     *
+     * @param id       Skipass identifier.
+     * @param blueline Skipass has blue line.
+     */
+    public void setBlueline(long id, boolean blueline) {
+        this.store.setFlag(id, SkipassStore.BLUELINE, blueline);
+    }
+
+    /**
+     * Set the validity window of the skipass in the registry.
+     *
+     * @param id        Skipass identifier.
+     * @param validFrom Begin of the validity window in milliseconds (inclusive).
+     * @param validTo   End of the validity window in milliseconds (exclusive).
+     */
+    public void setValidity(long id, long validFrom, long validTo) {
+        if (this.store.setWindow(id, validFrom, validTo)) {
+            this.scheduleExpiry(id, validTo);
+        }
+    }
+
+    /**
+     * Set the scheduler of the expiries, shared with the other timed actions of the cableway. The
+     * expiry wheel is advanced every {@link #EXPIRY_TICK} by a task on the scheduler.
+     *
+     * @param scheduler Scheduler, null to expire the skipasses only by hand.
+     */
+    public synchronized void setScheduler(ScheduledExecutorService scheduler) {
+        if (this.expiryTask != null) {
+            this.expiryTask.cancel(false);
+            this.expiryTask = null;
+        }
+
+        if (scheduler != null) {
+            this.expiryTask = scheduler.scheduleAtFixedRate(
+                    () -> this.expire(System.currentTimeMillis()),
+                    EXPIRY_TICK,
+                    EXPIRY_TICK,
+                    TimeUnit.MILLISECONDS
+            );
+        }
+    }
+
+    /**
+     * Get the number of skipasses in the registry.
+     *
+     * @return Number of skipasses in the registry.
+     */
+    public int size() {
+        return this.store.size();
+    }
+
+    /**
+     * Clear the registry of skipasses.
      */
     public void clear() {
-        this.skipasses.clear();
+        this.store.clear();
+        this.revocations.clear();
+
+        this.expiryLock.lock();
+        try {
+            this.initExpiries();
+        } finally {
+            this.expiryLock.unlock();
+        }
     }
 
     // -------------------------------------------------------------------------------- Constructors
 
     /**
-     * Create skipass manager initialize the list of skipasses.
+     * Create skipass manager with the expected number of skipasses.
+     *
+     * @param expectedSize Expected number of skipasses.
+     */
+    public SkipassManager(int expectedSize) {
+        this.store = new SkipassStore(expectedSize);
+        this.revocations = new RevocationSet();
+        this.initExpiries();
+    }
+
+    /**
+     * Create skipass manager initialize the registry of skipasses.
      */
     public SkipassManager() {
-        this.skipasses = new ArrayList<>();
+        this.store = new SkipassStore();
+        this.revocations = new RevocationSet();
+        this.initExpiries();
+    }
+
+    /**
+     * Create skipass manager on a pass file, the skipasses are served directly from the mapped
+     * file, so the manager is ready without loading the skipasses one by one.
+     *
+     * @param passFile Path of the pass file.
+     * @throws IOException Error reading the file or not a valid pass file.
+     * @see SkipassFileConverter
+     */
+    public SkipassManager(Path passFile) throws IOException {
+        this.store = SkipassStore.map(passFile);
+        this.revocations = new RevocationSet();
+        this.initExpiries();
     }
 
     // -------------------------------------------------------------------------------- Help Methods
 
+    /**
+     * Initialize an empty expiry wheel starting now.
+     */
+    private void initExpiries() {
+        this.expiries = new ExpiryWheel(EXPIRY_TICK, System.currentTimeMillis());
+    }
+
+    /**
+     * Schedule the expiry of a skipass at the end of its validity window.
+     *
+     * @param id      Skipass identifier.
+     * @param validTo End of the validity window in milliseconds.
+     */
+    private void scheduleExpiry(long id, long validTo) {
+        if (validTo != ALWAYS_TO) {
+            long now = System.currentTimeMillis();
+
+            this.expiryLock.lock();
+            try {
+                this.expiries.schedule(id, validTo, expired -> this.expireSkipass(expired, now));
+            } finally {
+                this.expiryLock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Expire a skipass, if its validity window is still ended. The skipass is marked expired in
+     * the store, not set not valid and not revoked.
+     *
+     * @param id  Skipass identifier.
+     * @param now Current time in milliseconds.
+     */
+    private void expireSkipass(long id, long now) {
+        this.store.expire(id, now);
+    }
+
     /**
      * Is a skipass valid.
      *
@@ -86,13 +324,27 @@ public class SkipassManager {
      * @return True if the skipass is valid.
      */
     public boolean isValid(Skipass skipass) {
-        for (Skipass s : this.skipasses) {
-            if (s == skipass && skipass.isValid()) {
-                return true;
-            }
-        }
+        return skipass != null && this.isValid(skipass.getId());
+    }
 
-        return false;
+    /**
+     * Is a skipass valid.
+     *
+     * @param id Skipass identifier.
+     * @return True if the skipass is registered, valid and inside its validity window.
+     */
+    public boolean isValid(long id) {
+        return this.isValid(id, System.currentTimeMillis());
+    }
+
+    /**
+     * Is the skipass revoked, set not valid.
+     *
+     * @param id Skipass identifier.
+     * @return True if the skipass is revoked.
+     */
+    public boolean isRevoked(long id) {
+        return this.revocations.isRevoked(id);
     }
 
     /**
@@ -102,16 +354,129 @@ public class SkipassManager {
      * @return True if skipass has blue line.
      */
     public boolean isBlueline(Skipass skipass) {
-        for (Skipass s : this.skipasses) {
-            if (s == skipass && skipass.isBlueline()) {
-                return true;
+        return skipass != null && this.isBlueline(skipass.getId());
+    }
+
+    /**
+     * Has the skipass the blue line.
+     *
+     * @param id Skipass identifier.
+     * @return True if skipass is registered and has blue line.
+     */
+    public boolean isBlueline(long id) {
+        return this.store.isBlueline(id);
+    }
+
+    /**
+     * Is a skipass valid at a time.
+     *
+     * @param id  Skipass identifier.
+     * @param now Time of the validation in milliseconds.
+     * @return True if the skipass is valid at the time.
+     */
+    public boolean isValid(long id, long now) {
+        return this.store.isValid(id, now);
+    }
+
+    /**
+     * Validate 64 skipasses of a batch, one word of the result bitmap.
+     *
+     * @param ids  Skipasses identifiers.
+     * @param now  Time of the validation in milliseconds.
+     * @param word Index of the word.
+     * @return Word of the result bitmap.
+     */
+    private long validateWord(long[] ids, long now, int word) {
+        long bits = 0;
+        int begin = word * Long.SIZE;
+        int end = Math.min(begin + Long.SIZE, ids.length);
+
+        for (int i = begin; i < end; i++) {
+            if (this.isValid(ids[i], now)) {
+                bits |= 1L << (i - begin);
             }
         }
 
-        return false;
+        return bits;
     }
 
     // ----------------------------------------------------------------------------- General Methods
+
+    /**
+     * Validate a batch of skipasses at a time, for example replaying the gate logs. The batches
+     * bigger than {@link #PARALLEL_THRESHOLD} are validated in parallel, every task computes
+     * whole words of the result bitmap.
+     *
+     * @param ids Skipasses identifiers.
+     * @param now Time of the validation in milliseconds.
+     * @return Result bitmap, bit i set if the skipass i is valid.
+     */
+    public BitSet validateAll(long[] ids, long now) {
+        long[] words = new long[(ids.length + Long.SIZE - 1) / Long.SIZE];
+
+        if (ids.length < PARALLEL_THRESHOLD) {
+            for (int word = 0; word < words.length; word++) {
+                words[word] = this.validateWord(ids, now, word);
+            }
+        } else {
+            IntStream.range(0, words.length).parallel().forEach(
+                    word -> words[word] = this.validateWord(ids, now, word)
+            );
+        }
+
+        return BitSet.valueOf(words);
+    }
+
+    /**
+     * Validate a batch of skipasses now.
+     *
+     * @param ids Skipasses identifiers.
+     * @return Result bitmap, bit i set if the skipass i is valid.
+     */
+    public BitSet validateAll(long[] ids) {
+        return this.validateAll(ids, System.currentTimeMillis());
+    }
+
+    /**
+     * Validate a batch of skipasses now, for example a group passing the gate.
+     *
+     * @param skipasses Skipasses to validate.
+     * @return Result bitmap, bit i set if the skipass i is valid.
+     */
+    public BitSet validateAll(Skipass... skipasses) {
+        long[] ids = new long[skipasses.length];
+
+        for (int i = 0; i < skipasses.length; i++) {
+            ids[i] = skipasses[i] != null ? skipasses[i].getId() : 0;
+        }
+
+        return this.validateAll(ids);
+    }
+
+    /**
+     * Expire all the skipasses with the validity window ended before a time.
+     *
+     * @param now Current time in milliseconds.
+     */
+    public void expire(long now) {
+        this.expiryLock.lock();
+        try {
+            this.expiries.advance(now, id -> this.expireSkipass(id, now));
+        } finally {
+            this.expiryLock.unlock();
+        }
+    }
+
+    /**
+     * Save the registry to a pass file.
+     *
+     * @param passFile Path of the pass file.
+     * @throws IOException Error writing the file.
+     */
+    public void save(Path passFile) throws IOException {
+        this.store.save(passFile);
+    }
+
     // --------------------------------------------------------------------------- Static Components
     
 }
@@ -0,0 +1,777 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2018 giuliobosco.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package cableway.people.skypass;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Off-heap skipass store, keep the skipasses as packed records in a direct buffer, so the
+ * validation of a skipass reads no java objects.
+ * The records are stored in an open addressing hash table with linear probing, indexed by the
+ * skipass identifier. Readers are lock free (optimistic reads), writers are serialized.
+ *
+ * <p>Record layout ({@link #RECORD_SIZE} bytes, little endian):</p>
+ * <ul>
+ * <li>0: skipass identifier (long), 0 for an empty record</li>
+ * <li>8: begin of the validity window in milliseconds (long, inclusive)</li>
+ * <li>16: end of the validity window in milliseconds (long, exclusive)</li>
+ * <li>24: flags (int), {@link #VALID}, {@link #BLUELINE} and {@link #EXPIRED}</li>
+ * <li>28: reserved (int)</li>
+ * </ul>
+ *
+ * <p>The store can be saved to a pass file and mapped back from it, so a restarted station
+ * serves the skipasses directly from the file. The pass file is a {@link #HEADER_SIZE} bytes
+ * header (magic, version, size, capacity) followed by the records table.</p>
+ *
+ * @author giuliobosco
+ * @version 1.3
+ */
+public class SkipassStore {
+    // ------------------------------------------------------------------------------------ Costants
+
+    /**
+     * Size of a record in bytes.
+     */
+    public static final int RECORD_SIZE = 32;
+
+    /**
+     * Valid skipass flag.
+     */
+    public static final int VALID = 1;
+
+    /**
+     * Blue line skipass flag.
+     */
+    public static final int BLUELINE = 2;
+
+    /**
+     * Expired skipass flag, set at the end of the validity window and cleared when the window
+     * is changed.
+     */
+    public static final int EXPIRED = 4;
+
+    /**
+     * Flags of a skipass not in the store.
+     */
+    public static final int ABSENT = -1;
+
+    /**
+     * Size of the pass file header in bytes.
+     */
+    public static final int HEADER_SIZE = 32;
+
+    /**
+     * Pass file magic number, "SKIP".
+     */
+    public static final int MAGIC = 0x534B4950;
+
+    /**
+     * Pass file format version.
+     */
+    public static final int VERSION = 1;
+
+    /**
+     * Offset of the magic number in the pass file header.
+     */
+    private static final int MAGIC_OFFSET = 0;
+
+    /**
+     * Offset of the version in the pass file header.
+     */
+    private static final int VERSION_OFFSET = 4;
+
+    /**
+     * Offset of the number of records in the pass file header.
+     */
+    private static final int SIZE_OFFSET = 8;
+
+    /**
+     * Offset of the capacity in the pass file header.
+     */
+    private static final int CAPACITY_OFFSET = 12;
+
+    /**
+     * Offset of the identifier in the record.
+     */
+    static final int ID_OFFSET = 0;
+
+    /**
+     * Offset of the begin of the validity window in the record.
+     */
+    static final int VALID_FROM_OFFSET = 8;
+
+    /**
+     * Offset of the end of the validity window in the record.
+     */
+    static final int VALID_TO_OFFSET = 16;
+
+    /**
+     * Offset of the flags in the record.
+     */
+    static final int FLAGS_OFFSET = 24;
+
+    /**
+     * Minimum capacity of the store, in records.
+     */
+    private static final int MIN_CAPACITY = 16;
+
+    /**
+     * Maximum capacity of the store, in records (1 GiB of records).
+     */
+    private static final int MAX_CAPACITY = 1 << 25;
+
+    // ---------------------------------------------------------------------------------- Attributes
+
+    /**
+     * Records buffer.
+     */
+    private volatile ByteBuffer records;
+
+    /**
+     * Number of records in the store.
+     */
+    private volatile int size;
+
+    /**
+     * Lock of the store, optimistic reads and exclusive writes.
+     */
+    private final StampedLock lock;
+
+    /**
+     * Header of the mapped pass file, null if the records are not mapped from a file.
+     */
+    private ByteBuffer header;
+
+    // --------------------------------------------------------------------------- Getters & Setters
+
+    /**
+     * Get the number of skipasses in the store.
+     *
+     * @return Number of skipasses in the store.
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Get the capacity of the store, in records.
+     *
+     * @return Capacity of the store.
+     */
+    public int getCapacity() {
+        return this.records.capacity() / RECORD_SIZE;
+    }
+
+    // -------------------------------------------------------------------------------- Constructors
+
+    /**
+     * Create the store with the expected number of skipasses.
+     *
+     * @param expectedSize Expected number of skipasses.
+     */
+    public SkipassStore(int expectedSize) {
+        this.lock = new StampedLock();
+        this.records = allocate(capacityFor(expectedSize));
+    }
+
+    /**
+     * Create the store with the minimum capacity.
+     */
+    public SkipassStore() {
+        this(MIN_CAPACITY);
+    }
+
+    /**
+     * Create the store on a mapped pass file. The length of the file must match the capacity of
+     * the header and the size must be within the load factor, so the search of a skipass always
+     * finds an empty record.
+     *
+     * @param file Mapped pass file.
+     * @throws IOException Not a valid pass file.
+     */
+    private SkipassStore(MappedByteBuffer file) throws IOException {
+        this.lock = new StampedLock();
+        file.order(ByteOrder.LITTLE_ENDIAN);
+
+        if (file.capacity() < HEADER_SIZE || file.getInt(MAGIC_OFFSET) != MAGIC) {
+            throw new IOException("Not a skipass file.");
+        } else if (file.getInt(VERSION_OFFSET) != VERSION) {
+            throw new IOException("Unsupported skipass file version: " + file.getInt(VERSION_OFFSET));
+        }
+
+        int capacity = file.getInt(CAPACITY_OFFSET);
+        if (Integer.bitCount(capacity) != 1 || (long) capacity * RECORD_SIZE + HEADER_SIZE != file.capacity()) {
+            throw new IOException("Corrupted skipass file, capacity: " + capacity);
+        }
+
+        int size = file.getInt(SIZE_OFFSET);
+        if (size < 0 || (long) size * 2 > capacity) {
+            throw new IOException("Corrupted skipass file, size: " + size + ", capacity: " + capacity);
+        }
+
+        this.header = file;
+        this.size = size;
+        this.records = file.slice(HEADER_SIZE, capacity * RECORD_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    // -------------------------------------------------------------------------------- Help Methods
+
+    /**
+     * Find the record of the skipass.
+     *
+     * @param records Records buffer.
+     * @param id      Skipass identifier.
+     * @return Offset of the record, or the negative offset minus one of the empty record where
+     * the skipass should be inserted, or {@link Integer#MIN_VALUE} if the identifier is not bigger
+     * than 0, never in the store.
+     */
+    private static int find(ByteBuffer records, long id) {
+        if (id <= 0) {
+            return Integer.MIN_VALUE;
+        }
+
+        int mask = records.capacity() / RECORD_SIZE - 1;
+        int index = hash(id) & mask;
+
+        while (true) {
+            int offset = index * RECORD_SIZE;
+            long current = records.getLong(offset + ID_OFFSET);
+
+            if (current == id) {
+                return offset;
+            } else if (current == 0) {
+                return -offset - 1;
+            }
+
+            index = (index + 1) & mask;
+        }
+    }
+
+    /**
+     * Write a record.
+     *
+     * @param records   Records buffer.
+     * @param offset    Record offset.
+     * @param id        Skipass identifier.
+     * @param flags     Skipass flags.
+     * @param validFrom Begin of the validity window.
+     * @param validTo   End of the validity window.
+     */
+    private static void write(ByteBuffer records, int offset, long id, int flags, long validFrom, long validTo) {
+        records.putLong(offset + VALID_FROM_OFFSET, validFrom);
+        records.putLong(offset + VALID_TO_OFFSET, validTo);
+        records.putInt(offset + FLAGS_OFFSET, flags);
+        records.putLong(offset + ID_OFFSET, id);
+    }
+
+    /**
+     * Grow the records buffer if the load factor is over one half.
+     */
+    private void ensureCapacity() {
+        int capacity = this.getCapacity();
+
+        if ((this.size + 1) * 2 > capacity) {
+            if (capacity >= MAX_CAPACITY) {
+                throw new IllegalStateException("Skipass store full, capacity: " + capacity);
+            }
+
+            ByteBuffer old = this.records;
+            ByteBuffer grown = allocate(capacity * 2);
+
+            for (int offset = 0; offset < old.capacity(); offset += RECORD_SIZE) {
+                long id = old.getLong(offset + ID_OFFSET);
+
+                if (id != 0) {
+                    write(grown, -find(grown, id) - 1, id,
+                            old.getInt(offset + FLAGS_OFFSET),
+                            old.getLong(offset + VALID_FROM_OFFSET),
+                            old.getLong(offset + VALID_TO_OFFSET));
+                }
+            }
+
+            this.records = grown;
+            this.header = null;
+        }
+    }
+
+    /**
+     * Set the number of records, write it in the pass file header if the store is mapped.
+     *
+     * @param size Number of records.
+     */
+    private void setSize(int size) {
+        this.size = size;
+
+        if (this.header != null) {
+            this.header.putInt(SIZE_OFFSET, size);
+        }
+    }
+
+    /**
+     * Remove the record at the offset, shift back the following records of the same cluster.
+     *
+     * @param records Records buffer.
+     * @param offset  Offset of the record to remove.
+     */
+    private static void delete(ByteBuffer records, int offset) {
+        int mask = records.capacity() / RECORD_SIZE - 1;
+        int hole = offset / RECORD_SIZE;
+        int index = hole;
+
+        while (true) {
+            index = (index + 1) & mask;
+            int current = index * RECORD_SIZE;
+            long id = records.getLong(current + ID_OFFSET);
+
+            if (id == 0) {
+                break;
+            }
+
+            int home = hash(id) & mask;
+            boolean movable = hole <= index ? (home <= hole || home > index) : (home <= hole && home > index);
+
+            if (movable) {
+                write(records, hole * RECORD_SIZE, id,
+                        records.getInt(current + FLAGS_OFFSET),
+                        records.getLong(current + VALID_FROM_OFFSET),
+                        records.getLong(current + VALID_TO_OFFSET));
+                hole = index;
+            }
+        }
+
+        write(records, hole * RECORD_SIZE, 0, 0, 0, 0);
+    }
+
+    // ----------------------------------------------------------------------------- General Methods
+
+    /**
+     * Put a skipass in the store, replace the record if the skipass is already in the store.
+     *
+     * @param id        Skipass identifier, must be bigger than 0.
+     * @param valid     Skipass valid.
+     * @param blueline  Skipass has blue line.
+     * @param validFrom Begin of the validity window in milliseconds (inclusive).
+     * @param validTo   End of the validity window in milliseconds (exclusive).
+     */
+    public void put(long id, boolean valid, boolean blueline, long validFrom, long validTo) {
+        if (id <= 0) {
+            throw new IllegalArgumentException("Skipass identifier must be bigger than 0.");
+        }
+
+        int flags = (valid ? VALID : 0) | (blueline ? BLUELINE : 0);
+        long stamp = this.lock.writeLock();
+        try {
+            int offset = find(this.records, id);
+
+            if (offset < 0) {
+                this.ensureCapacity();
+                offset = -find(this.records, id) - 1;
+                this.setSize(this.size + 1);
+            }
+
+            write(this.records, offset, id, flags, validFrom, validTo);
+        } finally {
+            this.lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Remove a skipass from the store.
+     *
+     * @param id Skipass identifier.
+     * @return True if the skipass was in the store, false also if the identifier is not bigger
+     * than 0.
+     */
+    public boolean remove(long id) {
+        long stamp = this.lock.writeLock();
+        try {
+            int offset = find(this.records, id);
+
+            if (offset >= 0) {
+                delete(this.records, offset);
+                this.setSize(this.size - 1);
+                return true;
+            }
+
+            return false;
+        } finally {
+            this.lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Set or clear a flag of a skipass.
+     *
+     * @param id    Skipass identifier.
+     * @param flag  Flag to set or clear.
+     * @param value True to set the flag, false to clear it.
+     * @return True if the skipass is in the store.
+     */
+    public boolean setFlag(long id, int flag, boolean value) {
+        long stamp = this.lock.writeLock();
+        try {
+            int offset = find(this.records, id);
+
+            if (offset >= 0) {
+                int flags = this.records.getInt(offset + FLAGS_OFFSET);
+                this.records.putInt(offset + FLAGS_OFFSET, value ? flags | flag : flags & ~flag);
+                return true;
+            }
+
+            return false;
+        } finally {
+            this.lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Set the validity window of a skipass, the skipass is no more expired.
+     *
+     * @param id        Skipass identifier.
+     * @param validFrom Begin of the validity window in milliseconds (inclusive).
+     * @param validTo   End of the validity window in milliseconds (exclusive).
+     * @return True if the skipass is in the store.
+     */
+    public boolean setWindow(long id, long validFrom, long validTo) {
+        long stamp = this.lock.writeLock();
+        try {
+            int offset = find(this.records, id);
+
+            if (offset >= 0) {
+                this.records.putLong(offset + VALID_FROM_OFFSET, validFrom);
+                this.records.putLong(offset + VALID_TO_OFFSET, validTo);
+                this.records.putInt(offset + FLAGS_OFFSET, this.records.getInt(offset + FLAGS_OFFSET) & ~EXPIRED);
+                return true;
+            }
+
+            return false;
+        } finally {
+            this.lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Expire a skipass, set the expired flag if the validity window ended before a time. The
+     * valid flag is not changed.
+     *
+     * @param id  Skipass identifier.
+     * @param now Current time in milliseconds.
+     * @return True if the skipass is expired.
+     */
+    public boolean expire(long id, long now) {
+        long stamp = this.lock.writeLock();
+        try {
+            int offset = find(this.records, id);
+
+            if (offset >= 0 && this.records.getLong(offset + VALID_TO_OFFSET) <= now) {
+                this.records.putInt(offset + FLAGS_OFFSET, this.records.getInt(offset + FLAGS_OFFSET) | EXPIRED);
+                return true;
+            }
+
+            return false;
+        } finally {
+            this.lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Get the flags of a skipass.
+     *
+     * @param id Skipass identifier.
+     * @return Flags of the skipass, {@link #ABSENT} if the skipass is not in the store.
+     */
+    public int getFlags(long id) {
+        long stamp = this.lock.tryOptimisticRead();
+        ByteBuffer records = this.records;
+        int offset = find(records, id);
+        int flags = offset >= 0 ? records.getInt(offset + FLAGS_OFFSET) : ABSENT;
+
+        if (!this.lock.validate(stamp)) {
+            stamp = this.lock.readLock();
+            try {
+                offset = find(this.records, id);
+                flags = offset >= 0 ? this.records.getInt(offset + FLAGS_OFFSET) : ABSENT;
+            } finally {
+                this.lock.unlockRead(stamp);
+            }
+        }
+
+        return flags;
+    }
+
+    /**
+     * Get the end of the validity window of a skipass.
+     *
+     * @param id Skipass identifier.
+     * @return End of the validity window in milliseconds, Long.MIN_VALUE if the skipass is not in
+     * the store.
+     */
+    public long getValidTo(long id) {
+        long stamp = this.lock.tryOptimisticRead();
+        ByteBuffer records = this.records;
+        int offset = find(records, id);
+        long validTo = offset >= 0 ? records.getLong(offset + VALID_TO_OFFSET) : Long.MIN_VALUE;
+
+        if (!this.lock.validate(stamp)) {
+            stamp = this.lock.readLock();
+            try {
+                offset = find(this.records, id);
+                validTo = offset >= 0 ? this.records.getLong(offset + VALID_TO_OFFSET) : Long.MIN_VALUE;
+            } finally {
+                this.lock.unlockRead(stamp);
+            }
+        }
+
+        return validTo;
+    }
+
+    /**
+     * Is the skipass in the store, valid and inside its validity window.
+     *
+     * @param id  Skipass identifier.
+     * @param now Current time in milliseconds.
+     * @return True if the skipass is valid.
+     */
+    public boolean isValid(long id, long now) {
+        long stamp = this.lock.tryOptimisticRead();
+        boolean valid = isValid(this.records, id, now);
+
+        if (!this.lock.validate(stamp)) {
+            stamp = this.lock.readLock();
+            try {
+                valid = isValid(this.records, id, now);
+            } finally {
+                this.lock.unlockRead(stamp);
+            }
+        }
+
+        return valid;
+    }
+
+    /**
+     * Is the skipass in the store and has the blue line.
+     *
+     * @param id Skipass identifier.
+     * @return True if the skipass has the blue line.
+     */
+    public boolean isBlueline(long id) {
+        int flags = this.getFlags(id);
+        return flags != ABSENT && (flags & BLUELINE) != 0;
+    }
+
+    /**
+     * Is the skipass in the store.
+     *
+     * @param id Skipass identifier.
+     * @return True if the skipass is in the store.
+     */
+    public boolean contains(long id) {
+        return this.getFlags(id) != ABSENT;
+    }
+
+    /**
+     * Remove all the skipasses from the store.
+     */
+    public void clear() {
+        long stamp = this.lock.writeLock();
+        try {
+            this.records = allocate(MIN_CAPACITY);
+            this.header = null;
+            this.size = 0;
+        } finally {
+            this.lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Is the store still mapped on its pass file. A mapped store writes the changes to the file,
+     * until it grows over the capacity of the file or is cleared.
+     *
+     * @return True if the store is mapped on a pass file.
+     */
+    public boolean isMapped() {
+        return this.header != null;
+    }
+
+    /**
+     * Write the changes of a mapped store to the pass file.
+     */
+    public void flush() {
+        long stamp = this.lock.readLock();
+        try {
+            if (this.header instanceof MappedByteBuffer) {
+                ((MappedByteBuffer) this.header).force();
+            }
+        } finally {
+            this.lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Save the store to a pass file.
+     *
+     * @param path Path of the pass file.
+     * @throws IOException Error writing the file.
+     */
+    public void save(Path path) throws IOException {
+        long stamp = this.lock.readLock();
+        try {
+            ByteBuffer records = this.records.duplicate();
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            writeHeader(header, this.size, this.getCapacity());
+
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                while (header.hasRemaining()) {
+                    channel.write(header);
+                }
+                records.clear();
+                while (records.hasRemaining()) {
+                    channel.write(records);
+                }
+            }
+        } finally {
+            this.lock.unlockRead(stamp);
+        }
+    }
+
+    // --------------------------------------------------------------------------- Static Components
+
+    /**
+     * Map a pass file, the skipasses are served directly from the file without loading them.
+     *
+     * @param path Path of the pass file.
+     * @return Store mapped on the pass file.
+     * @throws IOException Error reading the file or not a valid pass file.
+     */
+    public static SkipassStore map(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Skipass file too big: " + channel.size());
+            }
+
+            return new SkipassStore(channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size()));
+        }
+    }
+
+    /**
+     * Create an empty pass file with the capacity for a number of skipasses and map it.
+     *
+     * @param path         Path of the pass file.
+     * @param expectedSize Expected number of skipasses.
+     * @return Store mapped on the new pass file.
+     * @throws IOException Error writing the file.
+     */
+    public static SkipassStore create(Path path, int expectedSize) throws IOException {
+        int capacity = capacityFor(expectedSize);
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            MappedByteBuffer file = channel.map(FileChannel.MapMode.READ_WRITE, 0,
+                    HEADER_SIZE + (long) capacity * RECORD_SIZE);
+            file.order(ByteOrder.LITTLE_ENDIAN);
+            writeHeader(file, 0, capacity);
+
+            return new SkipassStore(file);
+        }
+    }
+
+    /**
+     * Write the pass file header.
+     *
+     * @param header   Header buffer.
+     * @param size     Number of records.
+     * @param capacity Capacity of the records table.
+     */
+    private static void writeHeader(ByteBuffer header, int size, int capacity) {
+        header.putInt(MAGIC_OFFSET, MAGIC);
+        header.putInt(VERSION_OFFSET, VERSION);
+        header.putInt(SIZE_OFFSET, size);
+        header.putInt(CAPACITY_OFFSET, capacity);
+    }
+
+    /**
+     * Check a record of the records buffer.
+     *
+     * @param records Records buffer.
+     * @param id      Skipass identifier.
+     * @param now     Current time in milliseconds.
+     * @return True if the skipass is valid.
+     */
+    private static boolean isValid(ByteBuffer records, long id, long now) {
+        int offset = find(records, id);
+
+        return offset >= 0
+                && (records.getInt(offset + FLAGS_OFFSET) & (VALID | EXPIRED)) == VALID
+                && records.getLong(offset + VALID_FROM_OFFSET) <= now
+                && now < records.getLong(offset + VALID_TO_OFFSET);
+    }
+
+    /**
+     * Spread the bits of the skipass identifier.
+     *
+     * @param id Skipass identifier.
+     * @return Hash of the identifier.
+     */
+    static int hash(long id) {
+        long h = id * 0x9E3779B97F4A7C15L;
+        h ^= h >>> 32;
+        return (int) (h ^ (h >>> 16));
+    }
+
+    /**
+     * Get the capacity of the records table for a number of skipasses.
+     *
+     * @param size Number of skipasses.
+     * @return Capacity, power of two.
+     */
+    static int capacityFor(int size) {
+        int capacity = MIN_CAPACITY;
+
+        while (capacity < MAX_CAPACITY && capacity < (long) size * 2) {
+            capacity <<= 1;
+        }
+
+        return capacity;
+    }
+
+    /**
+     * Allocate a records buffer.
+     *
+     * @param capacity Capacity in records.
+     * @return Direct records buffer.
+     */
+    private static ByteBuffer allocate(int capacity) {
+        return ByteBuffer.allocateDirect(capacity * RECORD_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+}
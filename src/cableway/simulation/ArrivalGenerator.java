@@ -0,0 +1,250 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2018 giuliobosco.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package cableway.simulation;
+
+import cableway.CablewayException;
+import cableway.people.Person;
+import cableway.people.skypass.SkipassManager;
+import cableway.station.Station;
+import help.Random;
+
+/**
+ * Arrival generator, stream the arrivals of an {@link ArrivalProcess} into a station of a
+ * {@link LineSimulation}. Every arrival schedules the next one, so only one arrival of the
+ * generator is pending at a time, whatever the length of the run. The passengers have a random
+ * weight and a random skipass of a pool.
+ *
+ * @author giuliobosco
+ * @version 1.1
+ */
+public class ArrivalGenerator {
+    // ------------------------------------------------------------------------------------ Costants
+    // ---------------------------------------------------------------------------------- Attributes
+
+    /**
+     * Line of the station.
+     */
+    private final LineSimulation line;
+
+    /**
+     * Station of the arrivals.
+     */
+    private final Station station;
+
+    /**
+     * Arrival process.
+     */
+    private final ArrivalProcess process;
+
+    /**
+     * Random stream of the passengers.
+     */
+    private final Random random;
+
+    /**
+     * Skipass identifiers of the passengers.
+     */
+    private final long[] skipasses;
+
+    /**
+     * Number of passengers generated.
+     */
+    private long generated;
+
+    /**
+     * Highest number of people waiting at the station at an arrival.
+     */
+    private int peakWaiting;
+
+    /**
+     * Generator started and not stopped.
+     */
+    private boolean running;
+
+    /**
+     * Generation of the arrivals chain, incremented at every start and stop, a pending arrival
+     * of an older generation is ignored.
+     */
+    private long generation;
+
+    // --------------------------------------------------------------------------- Getters & Setters
+
+    /**
+     * Get the number of passengers generated.
+     *
+     * @return Number of passengers generated.
+     */
+    public long getGenerated() {
+        return this.generated;
+    }
+
+    /**
+     * Get the highest number of people waiting at the station at an arrival.
+     *
+     * @return Highest number of people waiting.
+     */
+    public int getPeakWaiting() {
+        return this.peakWaiting;
+    }
+
+    // -------------------------------------------------------------------------------- Constructors
+
+    /**
+     * Create the arrival generator.
+     *
+     * @param line      Line of the station.
+     * @param station   Station of the arrivals.
+     * @param process   Arrival process.
+     * @param random    Random stream of the passengers.
+     * @param skipasses Skipass identifiers of the passengers, not empty.
+     */
+    public ArrivalGenerator(LineSimulation line, Station station, ArrivalProcess process, Random random, long[] skipasses) {
+        if (skipasses.length == 0) {
+            throw new IllegalArgumentException("No skipasses for the passengers");
+        }
+
+        this.line = line;
+        this.station = station;
+        this.process = process;
+        this.random = random;
+        this.skipasses = skipasses;
+    }
+
+    // -------------------------------------------------------------------------------- Help Methods
+
+    /**
+     * Schedule the next arrival of the process.
+     */
+    private void scheduleNext() {
+        long time = this.process.next();
+        long generation = this.generation;
+
+        if (time != ArrivalProcess.END) {
+            this.line.getSimulation().scheduleAt(
+                    Math.max(time, this.line.getSimulation().now()),
+                    () -> this.arrive(generation)
+            );
+        }
+    }
+
+    /**
+     * A passenger arrives, add it to the station and schedule the next arrival.
+     *
+     * @param generation Generation of the arrivals chain of the arrival.
+     */
+    private void arrive(long generation) {
+        if (generation == this.generation) {
+            long skipass = this.skipasses[this.random.nextInt(0, this.skipasses.length - 1)];
+
+            this.line.addPassenger(Person.getRandomWeight(this.random), skipass, this.station, this.line.getSimulation().now());
+            this.generated++;
+            this.peakWaiting = Math.max(this.peakWaiting, this.line.getWaiting(this.station));
+
+            this.scheduleNext();
+        }
+    }
+
+    // ----------------------------------------------------------------------------- General Methods
+
+    /**
+     * Start the generator, schedule the first arrival. A generator already running is not
+     * started again.
+     */
+    public void start() {
+        if (!this.running) {
+            this.running = true;
+            this.generation++;
+            this.scheduleNext();
+        }
+    }
+
+    /**
+     * Stop the generator, the pending arrival is dropped, also if the generator is started again
+     * before its time.
+     */
+    public void stop() {
+        if (this.running) {
+            this.running = false;
+            this.generation++;
+        }
+    }
+
+    // --------------------------------------------------------------------------- Static Components
+
+    /**
+     * Main method, run a ski day at the lower station of a line with a Poisson or a ski day
+     * profile arrival process and print the queues, to find the rate where they blow up.
+     *
+     * @param args Arrivals per hour (at the peak with the profile), profile or poisson, number of
+     *             gates and seed.
+     */
+    public static void main(String[] args) {
+        if (args.length < 1 || args.length > 4) {
+            System.err.println("Usage: ArrivalGenerator <arrivals per hour> [profile|poisson] [gates] [seed]");
+            System.exit(1);
+        }
+
+        try {
+            double rate = Double.parseDouble(args[0]);
+            boolean profile = args.length < 2 || args[1].equals("profile");
+            int gates = args.length > 2 ? Integer.parseInt(args[2]) : LineSimulation.DEFAULT_GATES;
+            Random random = args.length > 3 ? new Random(Long.parseLong(args[3])) : new Random();
+
+            long hour = (long) PoissonArrivals.HOUR;
+            Simulation simulation = new Simulation(8 * hour);
+            SkipassManager skipassManager = new SkipassManager();
+            long[] skipasses = new long[100000];
+            for (int i = 0; i < skipasses.length; i++) {
+                skipasses[i] = i + 1;
+                skipassManager.addSkipass(skipasses[i], true, false, SkipassManager.ALWAYS_FROM, SkipassManager.ALWAYS_TO);
+            }
+
+            LineSimulation line = new LineSimulation(simulation, skipassManager, gates);
+            ArrivalProcess process = profile
+                    ? new ProfileArrivals(random.split(), rate, 0)
+                    : new PoissonArrivals(random.split(), rate, 8 * hour, 17 * hour);
+            ArrivalGenerator generator = new ArrivalGenerator(line, line.getLowerStation(), process, random.split(), skipasses);
+
+            line.start();
+            generator.start();
+            long begin = System.nanoTime();
+            simulation.runUntil(17 * hour);
+            long elapsed = (System.nanoTime() - begin) / 1000000;
+
+            System.out.println("Arrived:        " + line.getArrived());
+            System.out.println("Rejected:       " + line.getRejected());
+            System.out.println("Boarded:        " + line.getBoarded());
+            System.out.println("Average wait:   " + Math.round(line.getAverageWait() / 1000) + " s");
+            System.out.println("Peak waiting:   " + generator.getPeakWaiting());
+            System.out.println("Waiting at end: " + line.getWaiting(line.getLowerStation()));
+            System.out.println("Events:         " + simulation.getProcessed() + " in " + elapsed + " ms");
+        } catch (NumberFormatException nfe) {
+            System.err.println("Wrong number: " + nfe.getMessage());
+            System.exit(1);
+        } catch (CablewayException ce) {
+            System.err.println(ce.getMessage());
+            System.exit(1);
+        }
+    }
+}
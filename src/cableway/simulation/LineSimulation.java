@@ -0,0 +1,707 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2018 giuliobosco.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package cableway.simulation;
+
+import cableway.CablewayActionManager;
+import cableway.CablewayException;
+import cableway.cabin.Cabin;
+import cableway.cable.Cable;
+import cableway.people.Crowd;
+import cableway.people.FullSetException;
+import cableway.people.Person;
+import cableway.people.skypass.SkipassManager;
+import cableway.station.Gate;
+import cableway.station.Station;
+
+import java.util.Arrays;
+
+/**
+ * Simulation of a cableway line driven by events instead of sleeping threads. The people, the
+ * gates, the platforms and the cabins are state machines moved by the events of a
+ * {@link Simulation}, using the cableway model: the gates check the skipasses, the stations
+ * board the cabins, the cabins and the cable check the weight, the doors and the positions.
+ *
+ * <p>Cycle of the cabins: arrived, the people exit ({@link #EXIT_TIME}); boarding, the ready
+ * people of the station enter ({@link #BOARDING_TIME}); travelling, until the other station.
+ * The people arrive at a station, queue at the gate with the shortest queue, pass it and wait in
+ * the station until a cabin boards them.</p>
+ *
+ * <p>The passengers are kept in a {@link Crowd}, by number; a passenger becomes a
+ * {@link Person} view only when it enters a station, so the simulation of a day of millions of
+ * passengers keeps only their columns in memory.</p>
+ *
+ * @author giuliobosco
+ * @version 1.0
+ */
+public class LineSimulation {
+    // ------------------------------------------------------------------------------------ Costants
+
+    /**
+     * Time for the people to exit the cabin, in milliseconds.
+     */
+    public static final long EXIT_TIME = 10000;
+
+    /**
+     * Time for the people to enter the cabin, in milliseconds.
+     */
+    public static final long BOARDING_TIME = 30000;
+
+    /**
+     * Default cable length.
+     */
+    public static final double CABLE_LENGTH = 10000;
+
+    /**
+     * Default number of gates of a station.
+     */
+    public static final int DEFAULT_GATES = 4;
+
+    // ---------------------------------------------------------------------------------- Attributes
+
+    /**
+     * Simulation kernel.
+     */
+    private final Simulation simulation;
+
+    /**
+     * Cableway action manager, receive the exceptions of the simulation.
+     */
+    private final CablewayActionManager cablewayActionManager;
+
+    /**
+     * Cable of the line.
+     */
+    private final Cable cable;
+
+    /**
+     * Cabin 0, at the lower station when the cable is at position 0.
+     */
+    private final Cabin cabin0;
+
+    /**
+     * Cabin 1, at the upper station when the cable is at position 0.
+     */
+    private final Cabin cabin1;
+
+    /**
+     * Lower station.
+     */
+    private final StationModel lowerStation;
+
+    /**
+     * Upper station.
+     */
+    private final StationModel upperStation;
+
+    /**
+     * Passengers of the simulation.
+     */
+    private final Crowd crowd;
+
+    /**
+     * People arrived.
+     */
+    private long arrived;
+
+    /**
+     * People rejected by the gates.
+     */
+    private long rejected;
+
+    /**
+     * People boarded on a cabin.
+     */
+    private long boarded;
+
+    /**
+     * People transported to the other station.
+     */
+    private long transported;
+
+    /**
+     * Sum of the waits from the arrival to the boarding, in milliseconds.
+     */
+    private long totalWait;
+
+    /**
+     * Trips of the cabins.
+     */
+    private long trips;
+
+    /**
+     * Errors of the cableway.
+     */
+    private long errors;
+
+    // --------------------------------------------------------------------------- Getters & Setters
+
+    /**
+     * Get the simulation kernel.
+     *
+     * @return Simulation kernel.
+     */
+    public Simulation getSimulation() {
+        return this.simulation;
+    }
+
+    /**
+     * Get the passengers of the simulation.
+     *
+     * @return Passengers of the simulation.
+     */
+    public Crowd getCrowd() {
+        return this.crowd;
+    }
+
+    /**
+     * Get the cableway action manager, receive the exceptions of the simulation.
+     *
+     * @return Cableway action manager.
+     */
+    public CablewayActionManager getCablewayActionManager() {
+        return this.cablewayActionManager;
+    }
+
+    /**
+     * Get the lower station.
+     *
+     * @return Lower station.
+     */
+    public Station getLowerStation() {
+        return this.lowerStation.station;
+    }
+
+    /**
+     * Get the upper station.
+     *
+     * @return Upper station.
+     */
+    public Station getUpperStation() {
+        return this.upperStation.station;
+    }
+
+    /**
+     * Get the number of people arrived.
+     *
+     * @return People arrived.
+     */
+    public long getArrived() {
+        return this.arrived;
+    }
+
+    /**
+     * Get the number of people rejected by the gates.
+     *
+     * @return People rejected.
+     */
+    public long getRejected() {
+        return this.rejected;
+    }
+
+    /**
+     * Get the number of people boarded on a cabin.
+     *
+     * @return People boarded.
+     */
+    public long getBoarded() {
+        return this.boarded;
+    }
+
+    /**
+     * Get the number of people transported to the other station.
+     *
+     * @return People transported.
+     */
+    public long getTransported() {
+        return this.transported;
+    }
+
+    /**
+     * Get the average wait from the arrival to the boarding.
+     *
+     * @return Average wait in milliseconds.
+     */
+    public double getAverageWait() {
+        return this.boarded == 0 ? 0 : (double) this.totalWait / this.boarded;
+    }
+
+    /**
+     * Get the number of trips of the cabins.
+     *
+     * @return Trips of the cabins.
+     */
+    public long getTrips() {
+        return this.trips;
+    }
+
+    /**
+     * Get the number of errors of the cableway.
+     *
+     * @return Errors of the cableway.
+     */
+    public long getErrors() {
+        return this.errors;
+    }
+
+    /**
+     * Get the number of people waiting at a station, at the gates or in the station.
+     *
+     * @param station Station.
+     * @return People waiting.
+     */
+    public int getWaiting(Station station) {
+        return this.modelOf(station).waiting();
+    }
+
+    /**
+     * Get the travel time of the cabins between the stations.
+     *
+     * @return Travel time in milliseconds.
+     */
+    public long getTravelTime() {
+        return (long) (this.cable.getLength() / (Cable.MAX_SPEED / 3.6) * 1000);
+    }
+
+    // -------------------------------------------------------------------------------- Constructors
+
+    /**
+     * Create the line simulation with the skipass manager of the gates and the number of gates
+     * of every station.
+     *
+     * @param simulation     Simulation kernel.
+     * @param skipassManager Skipass manager of the gates.
+     * @param gates          Number of gates of every station.
+     * @throws CablewayException Error creating the cableway.
+     */
+    public LineSimulation(Simulation simulation, SkipassManager skipassManager, int gates) throws CablewayException {
+        this.simulation = simulation;
+        this.cablewayActionManager = new CablewayActionManager();
+        this.cable = new Cable(CABLE_LENGTH);
+        this.cabin0 = new Cabin(this.cable, this.cablewayActionManager);
+        this.cabin1 = new Cabin(this.cable, this.cablewayActionManager, this.cable.getLength());
+
+        this.lowerStation = new StationModel(
+                new Station(Station.LOWER_STATION, this.cabin0, this.cabin1, this.cablewayActionManager),
+                skipassManager, gates);
+        this.upperStation = new StationModel(
+                new Station(Station.UPPER_STATION, this.cabin0, this.cabin1, this.cablewayActionManager),
+                skipassManager, gates);
+
+        this.crowd = new Crowd();
+    }
+
+    /**
+     * Create the line simulation with the default number of gates.
+     *
+     * @param simulation     Simulation kernel.
+     * @param skipassManager Skipass manager of the gates.
+     * @throws CablewayException Error creating the cableway.
+     */
+    public LineSimulation(Simulation simulation, SkipassManager skipassManager) throws CablewayException {
+        this(simulation, skipassManager, DEFAULT_GATES);
+    }
+
+    // -------------------------------------------------------------------------------- Help Methods
+
+    /**
+     * Get the model of a station.
+     *
+     * @param station Station.
+     * @return Model of the station.
+     */
+    private StationModel modelOf(Station station) {
+        return station == this.lowerStation.station ? this.lowerStation : this.upperStation;
+    }
+
+    /**
+     * Get the station where a cabin is stopped.
+     *
+     * @param cabin Cabin.
+     * @return Model of the station of the cabin.
+     */
+    private StationModel stationOf(Cabin cabin) {
+        boolean atStart = this.cable.getPosition() == 0;
+        return (cabin == this.cabin0) == atStart ? this.lowerStation : this.upperStation;
+    }
+
+    /**
+     * Notify an error of the cableway.
+     *
+     * @param e Cableway exception.
+     */
+    private void error(CablewayException e) {
+        this.errors++;
+        this.cablewayActionManager.exceptionThrower(e);
+    }
+
+    /**
+     * Passenger arrived at a station, join the gate with the shortest queue.
+     *
+     * @param passenger Passenger number.
+     * @param station   Station of the passenger.
+     */
+    private void arrive(int passenger, StationModel station) {
+        this.arrived++;
+        this.crowd.setState(passenger, Crowd.AT_GATE);
+
+        int shortest = 0;
+        for (int i = 1; i < station.gates.length; i++) {
+            if (station.queueLength(i) < station.queueLength(shortest)) {
+                shortest = i;
+            }
+        }
+
+        station.gateQueues[shortest].add(passenger);
+        if (!station.gateBusy[shortest]) {
+            this.serveGate(station, shortest);
+        }
+    }
+
+    /**
+     * Gate free, the next passenger of the queue swipes the skipass. The gate stays busy for the
+     * gate open time, then the passenger enters the station.
+     *
+     * @param station Station of the gate.
+     * @param index   Index of the gate.
+     */
+    private void serveGate(StationModel station, int index) {
+        int passenger = station.gateQueues[index].poll();
+        station.gateBusy[index] = passenger >= 0;
+
+        if (passenger >= 0) {
+            Gate gate = station.gates[index];
+            boolean accepted = gate.open(this.crowd.getSkipass(passenger), this.simulation.now());
+
+            if (!accepted) {
+                this.rejected++;
+                this.crowd.setState(passenger, Crowd.REJECTED);
+            }
+
+            this.simulation.schedule(Gate.OPEN_TIME, () -> {
+                if (accepted) {
+                    gate.close();
+                    this.enterStation(station, passenger);
+                }
+                this.serveGate(station, index);
+            });
+        }
+    }
+
+    /**
+     * Passenger passed the gate, join the queue of the station: the boarding planner of the
+     * station plans it in the load of the next cabin, or defers it to a next cabin.
+     *
+     * @param station   Station.
+     * @param passenger Passenger number.
+     */
+    private void enterStation(StationModel station, int passenger) {
+        this.crowd.setState(passenger, Crowd.QUEUED);
+
+        try {
+            station.station.addPerson(this.crowd.person(passenger));
+        } catch (FullSetException fse) {
+            this.error(fse);
+        }
+    }
+
+    /**
+     * Cabins arrived at the stations, the people exit.
+     */
+    private void arrived() {
+        try {
+            for (Cabin cabin : new Cabin[]{this.cabin0, this.cabin1}) {
+                cabin.setReady(false);
+                cabin.openExternallDoor();
+
+                for (Person person : cabin.getPeople().getPeople()) {
+                    this.crowd.setState(person.getCrowdIndex(), Crowd.TRANSPORTED);
+                    this.transported++;
+                }
+                cabin.emptyPeople();
+            }
+        } catch (CablewayException ce) {
+            this.error(ce);
+        }
+
+        this.simulation.schedule(EXIT_TIME, this::boarding);
+    }
+
+    /**
+     * Cabins empty, the ready people of the stations enter.
+     */
+    private void boarding() {
+        for (Cabin cabin : new Cabin[]{this.cabin0, this.cabin1}) {
+            StationModel station = this.stationOf(cabin);
+
+            try {
+                cabin.openInternalDoor();
+                station.station.boardCabin(cabin);
+
+                for (Person person : cabin.getPeople().getPeople()) {
+                    int passenger = person.getCrowdIndex();
+
+                    this.crowd.setState(passenger, Crowd.BOARDED);
+                    this.crowd.setBoardingTime(passenger, this.simulation.now());
+                    this.totalWait += this.simulation.now() - this.crowd.getArrivalTime(passenger);
+                    this.boarded++;
+                }
+            } catch (CablewayException ce) {
+                this.error(ce);
+            }
+        }
+
+        this.simulation.schedule(BOARDING_TIME, this::depart);
+    }
+
+    /**
+     * Cabins boarded, close the doors and start the cable.
+     */
+    private void depart() {
+        try {
+            for (Cabin cabin : new Cabin[]{this.cabin0, this.cabin1}) {
+                cabin.closeExternalDoor();
+                cabin.closeInternalDoor();
+                cabin.setReady(true);
+            }
+
+            this.cable.setSpeed(Cable.MAX_SPEED);
+        } catch (CablewayException ce) {
+            this.error(ce);
+        }
+
+        this.simulation.schedule(this.getTravelTime(), this::travelled);
+    }
+
+    /**
+     * Cabins travelled to the other stations, stop the cable.
+     */
+    private void travelled() {
+        try {
+            this.cable.setSpeed(0);
+            this.cable.setPosition(this.cable.getPosition() == 0 ? this.cable.getLength() : 0);
+            this.trips++;
+        } catch (CablewayException ce) {
+            this.error(ce);
+        }
+
+        this.arrived();
+    }
+
+    // ----------------------------------------------------------------------------- General Methods
+
+    /**
+     * Add a passenger arriving at a station at a time.
+     *
+     * @param weight    Weight of the passenger.
+     * @param skipassId Skipass identifier of the passenger.
+     * @param station   Station, lower or upper station of the line.
+     * @param time      Arrival time in milliseconds.
+     * @return Passenger number in the crowd.
+     */
+    public int addPassenger(double weight, long skipassId, Station station, long time) {
+        int passenger = this.crowd.add(weight, skipassId, time);
+        StationModel model = this.modelOf(station);
+
+        this.simulation.scheduleAt(time, () -> this.arrive(passenger, model));
+        return passenger;
+    }
+
+    /**
+     * Add a person arriving at a station at a time, the person is copied in the crowd.
+     *
+     * @param person  Person arriving, with the skipass.
+     * @param station Station, lower or upper station of the line.
+     * @param time    Arrival time in milliseconds.
+     * @return Passenger number in the crowd.
+     */
+    public int addPerson(Person person, Station station, long time) {
+        long skipassId = person.getSkipass() != null ? person.getSkipass().getId() : 0;
+        return this.addPassenger(person.getWeight(), skipassId, station, time);
+    }
+
+    /**
+     * Start the cabins, at the stations with the doors open.
+     */
+    public void start() {
+        this.simulation.schedule(0, this::arrived);
+    }
+
+    // --------------------------------------------------------------------------- Static Components
+
+    /**
+     * Model of a station: the gates with their queues and the people waiting to enter.
+     */
+    private static final class StationModel {
+
+        /**
+         * Station.
+         */
+        private final Station station;
+
+        /**
+         * Gates of the station.
+         */
+        private final Gate[] gates;
+
+        /**
+         * Queues of the gates.
+         */
+        private final IntQueue[] gateQueues;
+
+        /**
+         * Gates busy with a person.
+         */
+        private final boolean[] gateBusy;
+
+        /**
+         * Create the station model.
+         *
+         * @param station        Station.
+         * @param skipassManager Skipass manager of the gates.
+         * @param gates          Number of gates.
+         */
+        private StationModel(Station station, SkipassManager skipassManager, int gates) {
+            this.station = station;
+            this.gates = new Gate[gates];
+            this.gateQueues = new IntQueue[gates];
+            this.gateBusy = new boolean[gates];
+
+            for (int i = 0; i < gates; i++) {
+                this.gates[i] = new Gate(skipassManager);
+                this.gates[i].setNumber(i);
+                this.gateQueues[i] = new IntQueue();
+            }
+        }
+
+        /**
+         * Get the number of people at a gate.
+         *
+         * @param index Index of the gate.
+         * @return People queued or passing the gate.
+         */
+        private int queueLength(int index) {
+            return this.gateQueues[index].size() + (this.gateBusy[index] ? 1 : 0);
+        }
+
+        /**
+         * Get the number of people waiting at the station.
+         *
+         * @return People at the gates, waiting to enter and in the station.
+         */
+        private int waiting() {
+            int waiting = this.station.getDeferred() + this.station.getInPeople().size();
+
+            if (this.station.isInPeopleActive()) {
+                waiting += this.station.getReadyPeople().size();
+            }
+            for (int i = 0; i < this.gates.length; i++) {
+                waiting += this.queueLength(i);
+            }
+
+            return waiting;
+        }
+    }
+
+    /**
+     * First in first out queue of passenger numbers, without boxing.
+     */
+    private static final class IntQueue {
+
+        /**
+         * Elements of the queue, circular.
+         */
+        private int[] elements = new int[16];
+
+        /**
+         * Index of the first element.
+         */
+        private int head;
+
+        /**
+         * Number of elements.
+         */
+        private int size;
+
+        /**
+         * Add an element at the end of the queue.
+         *
+         * @param element Element to add.
+         */
+        private void add(int element) {
+            if (this.size == this.elements.length) {
+                int[] grown = Arrays.copyOfRange(this.elements, this.head, this.head + this.size * 2);
+                System.arraycopy(this.elements, 0, grown, this.elements.length - this.head, this.head);
+                this.elements = grown;
+                this.head = 0;
+            }
+
+            this.elements[(this.head + this.size++) & (this.elements.length - 1)] = element;
+        }
+
+        /**
+         * Get the first element of the queue.
+         *
+         * @return First element, -1 if the queue is empty.
+         */
+        private int peek() {
+            return this.size == 0 ? -1 : this.elements[this.head];
+        }
+
+        /**
+         * Remove the first element of the queue.
+         *
+         * @return First element, -1 if the queue is empty.
+         */
+        private int poll() {
+            int element = this.peek();
+
+            if (this.size > 0) {
+                this.head = (this.head + 1) & (this.elements.length - 1);
+                this.size--;
+            }
+
+            return element;
+        }
+
+        /**
+         * Get the number of elements.
+         *
+         * @return Number of elements.
+         */
+        private int size() {
+            return this.size;
+        }
+
+        /**
+         * Is the queue empty.
+         *
+         * @return True if the queue is empty.
+         */
+        private boolean isEmpty() {
+            return this.size == 0;
+        }
+    }
+
+}
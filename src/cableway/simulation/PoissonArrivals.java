@@ -0,0 +1,113 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2018 giuliobosco.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package cableway.simulation;
+
+import help.Random;
+
+/**
+ * Poisson arrival process, the people arrive independently at a constant rate, the intervals
+ * between the arrivals are exponentially distributed.
+ *
+ * @author giuliobosco
+ * @version 1.0
+ */
+public class PoissonArrivals implements ArrivalProcess {
+    // ------------------------------------------------------------------------------------ Costants
+
+    /**
+     * Milliseconds in an hour.
+     */
+    public static final double HOUR = 3600000;
+
+    // ---------------------------------------------------------------------------------- Attributes
+
+    /**
+     * Random stream of the intervals.
+     */
+    private final Random random;
+
+    /**
+     * Mean interval between the arrivals, in milliseconds.
+     */
+    private final double meanInterval;
+
+    /**
+     * End of the arrivals, in milliseconds.
+     */
+    private final long end;
+
+    /**
+     * Time of the last arrival, in fractions of milliseconds, the intervals can be shorter than a
+     * millisecond.
+     */
+    private double time;
+
+    // --------------------------------------------------------------------------- Getters & Setters
+
+    /**
+     * Get the mean interval between the arrivals.
+     *
+     * @return Mean interval in milliseconds.
+     */
+    public double getMeanInterval() {
+        return this.meanInterval;
+    }
+
+    // -------------------------------------------------------------------------------- Constructors
+
+    /**
+     * Create the Poisson arrival process.
+     *
+     * @param random Random stream of the intervals.
+     * @param rate   Arrivals per hour, greater than 0.
+     * @param start  Start of the arrivals, in milliseconds.
+     * @param end    End of the arrivals, in milliseconds.
+     */
+    public PoissonArrivals(Random random, double rate, long start, long end) {
+        if (!(rate > 0)) {
+            throw new IllegalArgumentException("Arrival rate must be greater than 0: " + rate);
+        }
+
+        this.random = random;
+        this.meanInterval = HOUR / rate;
+        this.time = start;
+        this.end = end;
+    }
+
+    // -------------------------------------------------------------------------------- Help Methods
+    // ----------------------------------------------------------------------------- General Methods
+
+    /**
+     * Get the time of the next arrival.
+     *
+     * @return Time of the next arrival in milliseconds, {@link #END} after the end.
+     */
+    @Override
+    public long next() {
+        this.time += this.random.nextExponential(this.meanInterval);
+        return this.time < this.end ? (long) this.time : END;
+    }
+
+    // --------------------------------------------------------------------------- Static Components
+}
@@ -0,0 +1,195 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2018 giuliobosco.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package cableway.simulation;
+
+import help.Random;
+
+/**
+ * Arrival process with a time of day profile, the rate of the arrivals changes in every period
+ * of the day, as the morning peak at the lower station. The arrivals are a Poisson process at
+ * the highest rate of the profile, thinned by the rate of the period of every arrival.
+ *
+ * @author giuliobosco
+ * @version 1.0
+ */
+public class ProfileArrivals implements ArrivalProcess {
+    // ------------------------------------------------------------------------------------ Costants
+
+    /**
+     * Hourly shape of a ski day from 8:00 to 17:00 at the lower station, relative to the peak.
+     */
+    public static final double[] SKI_DAY = {0.6, 1.0, 0.8, 0.5, 0.3, 0.4, 0.3, 0.2, 0.1};
+
+    // ---------------------------------------------------------------------------------- Attributes
+
+    /**
+     * Random stream of the intervals and of the thinning.
+     */
+    private final Random random;
+
+    /**
+     * Arrivals per hour of every period.
+     */
+    private final double[] rates;
+
+    /**
+     * Length of a period, in milliseconds.
+     */
+    private final long period;
+
+    /**
+     * Start of the profile, in milliseconds.
+     */
+    private final long start;
+
+    /**
+     * Highest rate of the profile, in arrivals per hour.
+     */
+    private final double peakRate;
+
+    /**
+     * Time of the last candidate arrival, in fractions of milliseconds.
+     */
+    private double time;
+
+    // --------------------------------------------------------------------------- Getters & Setters
+
+    /**
+     * Get the highest rate of the profile.
+     *
+     * @return Arrivals per hour.
+     */
+    public double getPeakRate() {
+        return this.peakRate;
+    }
+
+    /**
+     * Get the end of the profile.
+     *
+     * @return End of the profile in milliseconds.
+     */
+    public long getEnd() {
+        return this.start + this.period * this.rates.length;
+    }
+
+    // -------------------------------------------------------------------------------- Constructors
+
+    /**
+     * Create the arrival process with a profile.
+     *
+     * @param random Random stream of the intervals.
+     * @param rates  Arrivals per hour of every period, not negative.
+     * @param period Length of a period in milliseconds.
+     * @param start  Start of the profile in milliseconds.
+     */
+    public ProfileArrivals(Random random, double[] rates, long period, long start) {
+        if (period <= 0) {
+            throw new IllegalArgumentException("Period must be greater than 0: " + period);
+        }
+
+        double peak = 0;
+        for (double rate : rates) {
+            if (!(rate >= 0)) {
+                throw new IllegalArgumentException("Arrival rate must not be negative: " + rate);
+            }
+            peak = Math.max(peak, rate);
+        }
+
+        this.random = random;
+        this.rates = rates.clone();
+        this.period = period;
+        this.start = start;
+        this.peakRate = peak;
+        this.time = start;
+    }
+
+    /**
+     * Create the arrival process of a ski day, hourly periods from 8:00 to 17:00 shaped by
+     * {@link #SKI_DAY}.
+     *
+     * @param random   Random stream of the intervals.
+     * @param peakRate Arrivals per hour at the peak.
+     * @param day      Start of the day (midnight) in milliseconds.
+     */
+    public ProfileArrivals(Random random, double peakRate, long day) {
+        this(random, scale(SKI_DAY, peakRate), (long) PoissonArrivals.HOUR, day + 8 * (long) PoissonArrivals.HOUR);
+    }
+
+    // -------------------------------------------------------------------------------- Help Methods
+
+    /**
+     * Scale a shape to rates.
+     *
+     * @param shape Shape, relative to the peak.
+     * @param peak  Arrivals per hour at the peak.
+     * @return Arrivals per hour of every period.
+     */
+    private static double[] scale(double[] shape, double peak) {
+        double[] rates = new double[shape.length];
+        for (int i = 0; i < shape.length; i++) {
+            rates[i] = shape[i] * peak;
+        }
+        return rates;
+    }
+
+    /**
+     * Get the rate at a time.
+     *
+     * @param time Time in milliseconds.
+     * @return Arrivals per hour, -1 after the end of the profile.
+     */
+    private double rateAt(double time) {
+        int index = (int) ((time - this.start) / this.period);
+        return index < this.rates.length ? this.rates[index] : -1;
+    }
+
+    // ----------------------------------------------------------------------------- General Methods
+
+    /**
+     * Get the time of the next arrival.
+     *
+     * @return Time of the next arrival in milliseconds, {@link #END} after the end of the profile.
+     */
+    @Override
+    public long next() {
+        if (this.peakRate == 0) {
+            return END;
+        }
+
+        double meanInterval = PoissonArrivals.HOUR / this.peakRate;
+        while (true) {
+            this.time += this.random.nextExponential(meanInterval);
+            double rate = this.rateAt(this.time);
+
+            if (rate < 0) {
+                return END;
+            }
+            if (this.random.nextBoolean(rate / this.peakRate)) {
+                return (long) this.time;
+            }
+        }
+    }
+
+    // --------------------------------------------------------------------------- Static Components
+}
@@ -0,0 +1,220 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2018 giuliobosco.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package cableway.simulation;
+
+import java.util.PriorityQueue;
+
+/**
+ * Discrete event simulation kernel. The events are kept in a priority queue ordered by time, the
+ * events at the same time run in scheduling order, so a simulation is deterministic. The time is
+ * simulated, in milliseconds: a whole ski day runs as fast as its events.
+ * The kernel is not thread safe, the events run on the thread running the simulation.
+ *
+ * @author giuliobosco
+ * @version 1.0
+ */
+public class Simulation {
+    // ------------------------------------------------------------------------------------ Costants
+    // ---------------------------------------------------------------------------------- Attributes
+
+    /**
+     * Scheduled events.
+     */
+    private final PriorityQueue<Event> events;
+
+    /**
+     * Current simulated time in milliseconds.
+     */
+    private long now;
+
+    /**
+     * Sequence of the next scheduled event.
+     */
+    private long sequence;
+
+    /**
+     * Number of events run.
+     */
+    private long processed;
+
+    // --------------------------------------------------------------------------- Getters & Setters
+
+    /**
+     * Get the current simulated time.
+     *
+     * @return Current simulated time in milliseconds.
+     */
+    public long now() {
+        return this.now;
+    }
+
+    /**
+     * Get the number of events run.
+     *
+     * @return Number of events run.
+     */
+    public long getProcessed() {
+        return this.processed;
+    }
+
+    /**
+     * Get the number of events scheduled and not run yet.
+     *
+     * @return Number of pending events.
+     */
+    public int getPending() {
+        return this.events.size();
+    }
+
+    // -------------------------------------------------------------------------------- Constructors
+
+    /**
+     * Create the simulation starting at a time.
+     *
+     * @param start Start time in milliseconds.
+     */
+    public Simulation(long start) {
+        this.events = new PriorityQueue<>();
+        this.now = start;
+    }
+
+    /**
+     * Create the simulation starting at time 0.
+     */
+    public Simulation() {
+        this(0);
+    }
+
+    // -------------------------------------------------------------------------------- Help Methods
+    // ----------------------------------------------------------------------------- General Methods
+
+    /**
+     * Schedule an action at a time, not before the current time.
+     *
+     * @param time   Time of the action in milliseconds.
+     * @param action Action to run.
+     */
+    public void scheduleAt(long time, Runnable action) {
+        this.events.add(new Event(Math.max(time, this.now), this.sequence++, action));
+    }
+
+    /**
+     * Schedule an action after a delay.
+     *
+     * @param delay  Delay in milliseconds.
+     * @param action Action to run.
+     */
+    public void schedule(long delay, Runnable action) {
+        this.scheduleAt(this.now + delay, action);
+    }
+
+    /**
+     * Run the next event.
+     *
+     * @return False if there are no more events.
+     */
+    public boolean step() {
+        Event event = this.events.poll();
+
+        if (event == null) {
+            return false;
+        }
+
+        this.now = event.time;
+        this.processed++;
+        event.action.run();
+        return true;
+    }
+
+    /**
+     * Run the events up to a time, then move the clock to the time.
+     *
+     * @param time End time in milliseconds.
+     */
+    public void runUntil(long time) {
+        while (!this.events.isEmpty() && this.events.peek().time <= time) {
+            this.step();
+        }
+
+        this.now = Math.max(this.now, time);
+    }
+
+    /**
+     * Run all the events, until no more events are scheduled.
+     */
+    public void run() {
+        while (this.step()) {
+        }
+    }
+
+    // --------------------------------------------------------------------------- Static Components
+
+    /**
+     * Scheduled event, an action at a time.
+     */
+    private static final class Event implements Comparable<Event> {
+
+        /**
+         * Time of the event in milliseconds.
+         */
+        private final long time;
+
+        /**
+         * Scheduling order of the event.
+         */
+        private final long sequence;
+
+        /**
+         * Action of the event.
+         */
+        private final Runnable action;
+
+        /**
+         * Create the event.
+         *
+         * @param time     Time of the event in milliseconds.
+         * @param sequence Scheduling order of the event.
+         * @param action   Action of the event.
+         */
+        private Event(long time, long sequence, Runnable action) {
+            this.time = time;
+            this.sequence = sequence;
+            this.action = action;
+        }
+
+        /**
+         * Compare the events by time, then by scheduling order.
+         *
+         * @param other Other event.
+         * @return Order of the events.
+         */
+        @Override
+        public int compareTo(Event other) {
+            int order = Long.compare(this.time, other.time);
+            return order != 0 ? order : Long.compare(this.sequence, other.sequence);
+        }
+    }
+
+}
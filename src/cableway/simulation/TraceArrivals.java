@@ -0,0 +1,129 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2018 giuliobosco.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package cableway.simulation;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * Arrival process replaying a recorded trace of arrival times, as the swipes of a real day.
+ *
+ * <p>Trace file format: one arrival time in milliseconds for each line. Empty lines and comment
+ * lines (starting with #) are skipped, the times are sorted.</p>
+ *
+ * @author giuliobosco
+ * @version 1.0
+ */
+public class TraceArrivals implements ArrivalProcess {
+    // ------------------------------------------------------------------------------------ Costants
+    // ---------------------------------------------------------------------------------- Attributes
+
+    /**
+     * Arrival times, sorted.
+     */
+    private final long[] times;
+
+    /**
+     * Index of the next arrival.
+     */
+    private int index;
+
+    // --------------------------------------------------------------------------- Getters & Setters
+
+    /**
+     * Get the number of arrivals of the trace.
+     *
+     * @return Number of arrivals.
+     */
+    public int size() {
+        return this.times.length;
+    }
+
+    // -------------------------------------------------------------------------------- Constructors
+
+    /**
+     * Create the arrival process of a trace.
+     *
+     * @param times Arrival times in milliseconds, in any order.
+     */
+    public TraceArrivals(long[] times) {
+        this.times = times.clone();
+        Arrays.sort(this.times);
+    }
+
+    // -------------------------------------------------------------------------------- Help Methods
+    // ----------------------------------------------------------------------------- General Methods
+
+    /**
+     * Get the time of the next arrival.
+     *
+     * @return Time of the next arrival in milliseconds, {@link #END} at the end of the trace.
+     */
+    @Override
+    public long next() {
+        return this.index < this.times.length ? this.times[this.index++] : END;
+    }
+
+    // --------------------------------------------------------------------------- Static Components
+
+    /**
+     * Read a trace file.
+     *
+     * @param trace Path of the trace file.
+     * @return Arrival process of the trace.
+     * @throws IOException Error reading the file, or malformed time.
+     */
+    public static TraceArrivals read(Path trace) throws IOException {
+        long[] times = new long[1024];
+        int size = 0;
+
+        try (BufferedReader reader = Files.newBufferedReader(trace, StandardCharsets.UTF_8)) {
+            String line;
+            long lineNumber = 0;
+
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                line = line.trim();
+
+                if (!line.isEmpty() && line.charAt(0) != '#') {
+                    if (size == times.length) {
+                        times = Arrays.copyOf(times, size * 2);
+                    }
+
+                    try {
+                        times[size++] = Long.parseLong(line);
+                    } catch (NumberFormatException nfe) {
+                        throw new IOException("Wrong time at line " + lineNumber + ": " + line);
+                    }
+                }
+            }
+        }
+
+        return new TraceArrivals(Arrays.copyOf(times, size));
+    }
+}
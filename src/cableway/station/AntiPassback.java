@@ -0,0 +1,227 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2018 giuliobosco.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package cableway.station;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Anti-passback of the gates, reject a skipass passing again within an interval, for example a
+ * skipass shared between two people.
+ * The recent passages are kept in a lock free table of time buckets: every entry packs the
+ * fingerprint of the skipass and the time bucket of its last passage in one word, updated with a
+ * single compare and set. The entries older than the interval are free, so the table cleans
+ * itself and never needs to be swept.
+ *
+ * @author giuliobosco
+ * @version 1.1
+ */
+public class AntiPassback {
+    // ------------------------------------------------------------------------------------ Costants
+
+    /**
+     * Default interval before a skipass can pass again, 1 minute.
+     */
+    public static final long DEFAULT_INTERVAL = 60000;
+
+    /**
+     * Duration of a time bucket in milliseconds.
+     */
+    public static final long BUCKET = 100;
+
+    /**
+     * Default number of entries of the table.
+     */
+    private static final int DEFAULT_CAPACITY = 1 << 16;
+
+    /**
+     * Entries checked for a skipass.
+     */
+    private static final int PROBES = 8;
+
+    /**
+     * Maximum attempts of a concurrent update.
+     */
+    private static final int MAX_ATTEMPTS = 4;
+
+    // ---------------------------------------------------------------------------------- Attributes
+
+    /**
+     * Recent passages, fingerprint in the high word and time bucket in the low word.
+     */
+    private final AtomicLongArray entries;
+
+    /**
+     * Interval before a skipass can pass again, in time buckets.
+     */
+    private volatile int interval;
+
+    // --------------------------------------------------------------------------- Getters & Setters
+
+    /**
+     * Set the interval before a skipass can pass again.
+     *
+     * @param interval Interval in milliseconds.
+     */
+    public void setInterval(long interval) {
+        if (interval < 0) {
+            throw new IllegalArgumentException("Anti-passback interval must be positive.");
+        }
+
+        this.interval = (int) Math.min(Integer.MAX_VALUE, (interval + BUCKET - 1) / BUCKET);
+    }
+
+    /**
+     * Get the interval before a skipass can pass again.
+     *
+     * @return Interval in milliseconds.
+     */
+    public long getInterval() {
+        return this.interval * BUCKET;
+    }
+
+    // -------------------------------------------------------------------------------- Constructors
+
+    /**
+     * Create the anti-passback with the interval and the number of entries of the table.
+     *
+     * @param interval Interval before a skipass can pass again, in milliseconds.
+     * @param capacity Number of entries, the maximum number of skipasses passed within the
+     *                 interval, rounded to a power of two.
+     */
+    public AntiPassback(long interval, int capacity) {
+        int size = Integer.highestOneBit(Math.max(capacity, PROBES) - 1) << 1;
+
+        this.entries = new AtomicLongArray(size);
+        this.setInterval(interval);
+    }
+
+    /**
+     * Create the anti-passback with the interval.
+     *
+     * @param interval Interval before a skipass can pass again, in milliseconds.
+     */
+    public AntiPassback(long interval) {
+        this(interval, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Create the anti-passback with the default interval.
+     */
+    public AntiPassback() {
+        this(DEFAULT_INTERVAL);
+    }
+
+    // -------------------------------------------------------------------------------- Help Methods
+
+    /**
+     * Get the time bucket of a time, from the absolute time so any clock can be used, the wall
+     * clock or a simulated one. The bucket wraps around, the buckets are compared by their
+     * difference.
+     *
+     * @param time Time in milliseconds.
+     * @return Time bucket.
+     */
+    private static int bucketOf(long time) {
+        return (int) Math.floorDiv(time, BUCKET);
+    }
+
+    // ----------------------------------------------------------------------------- General Methods
+
+    /**
+     * Register the passage of a skipass, if it did not pass within the interval.
+     * When the table is saturated by skipasses passed within the interval the passage is
+     * accepted, a legal skier is never rejected for lack of space.
+     *
+     * @param id  Skipass identifier.
+     * @param now Time of the passage in milliseconds.
+     * @return True if the skipass can pass, false if it passed within the interval.
+     */
+    public boolean tryEnter(long id, long now) {
+        long hash = mix(id);
+        long fingerprint = (hash >>> 32) | 1;
+        int bucket = bucketOf(now);
+        long entry = (fingerprint << 32) | (bucket & 0xFFFFFFFFL);
+        int mask = this.entries.length() - 1;
+        int start = (int) hash & mask;
+        int interval = this.interval;
+
+        for (int attempt = 0; attempt < MAX_ATTEMPTS; attempt++) {
+            int free = -1;
+            long freeValue = 0;
+
+            for (int probe = 0; probe < PROBES; probe++) {
+                int index = (start + probe) & mask;
+                long value = this.entries.get(index);
+                boolean expired = bucket - (int) value >= interval;
+
+                if ((value >>> 32) == fingerprint) {
+                    if (!expired) {
+                        return false;
+                    } else if (this.entries.compareAndSet(index, value, entry)) {
+                        return true;
+                    }
+
+                    free = -2;
+                    break;
+                } else if (free == -1 && (value == 0 || expired)) {
+                    free = index;
+                    freeValue = value;
+                }
+            }
+
+            if (free == -1 || (free >= 0 && this.entries.compareAndSet(free, freeValue, entry))) {
+                return true;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Register the passage of a skipass now.
+     *
+     * @param id Skipass identifier.
+     * @return True if the skipass can pass, false if it passed within the interval.
+     */
+    public boolean tryEnter(long id) {
+        return this.tryEnter(id, System.currentTimeMillis());
+    }
+
+    // --------------------------------------------------------------------------- Static Components
+
+    /**
+     * Mix the bits of the skipass identifier.
+     *
+     * @param id Skipass identifier.
+     * @return 64 bits hash of the identifier.
+     */
+    private static long mix(long id) {
+        long h = id * 0x9E3779B97F4A7C15L;
+        h = (h ^ (h >>> 30)) * 0xBF58476D1CE4E5B9L;
+        h = (h ^ (h >>> 27)) * 0x94D049BB133111EBL;
+        return h ^ (h >>> 31);
+    }
+
+}
@@ -0,0 +1,386 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2018 giuliobosco.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package cableway.station;
+
+import java.util.function.IntConsumer;
+
+/**
+ * Boarding planner, plan the load of the next cabin from the first in first out queue of a
+ * station, maximizing the passengers of every trip within the maximum people and the maximum
+ * weight of a cabin.
+ *
+ * <p>The plan is computed while the people join the queue: a person that fits in the load is
+ * planned, a person that does not fit is deferred to the next trip and a lighter person behind it
+ * can take the place. A person can overtake only the deferred people within a look-ahead window,
+ * and a deferred person can be overtaken at most a number of times, then the load is closed
+ * behind it. When the cabin departs with the planned load, the deferred people at the head of the
+ * queue start the next plan, in order, so a deferred person waits at most one more trip and is
+ * overtaken at most a number of times in every trip.</p>
+ *
+ * <p>The passengers are identified by a number, the weights are kept in grams. The planner is not
+ * thread safe.</p>
+ *
+ * @author giuliobosco
+ * @version 1.2
+ */
+public class BoardingPlanner {
+    // ------------------------------------------------------------------------------------ Costants
+
+    /**
+     * Default look-ahead window, deferred people that can be overtaken.
+     */
+    public static final int DEFAULT_WINDOW = 16;
+
+    /**
+     * Default maximum times a deferred person can be overtaken.
+     */
+    public static final int DEFAULT_MAX_SKIPS = 8;
+
+    /**
+     * Grams in a weight unit.
+     */
+    private static final double GRAMS = 1000;
+
+    // ---------------------------------------------------------------------------------- Attributes
+
+    /**
+     * Maximum people of a load.
+     */
+    private final int maxPeople;
+
+    /**
+     * Maximum weight of a load in grams, the weight of the load must stay smaller.
+     */
+    private final long maxGrams;
+
+    /**
+     * Look-ahead window.
+     */
+    private final int window;
+
+    /**
+     * Maximum times a deferred person can be overtaken.
+     */
+    private final int maxSkips;
+
+    /**
+     * People of the planned load.
+     */
+    private int plannedPeople;
+
+    /**
+     * Weight of the planned load in grams.
+     */
+    private long plannedGrams;
+
+    /**
+     * People planned since the start, to count the people overtaking a deferred person.
+     */
+    private long planned;
+
+    /**
+     * Deferred passengers, circular.
+     */
+    private int[] deferred;
+
+    /**
+     * Weights of the deferred passengers in grams.
+     */
+    private long[] deferredGrams;
+
+    /**
+     * People planned when the deferred passengers were deferred, or when the first deferred
+     * passenger became the first, to count the people overtaking it in the trip.
+     */
+    private long[] deferredAt;
+
+    /**
+     * Index of the first deferred passenger.
+     */
+    private int head;
+
+    /**
+     * Number of deferred passengers.
+     */
+    private int size;
+
+    // --------------------------------------------------------------------------- Getters & Setters
+
+    /**
+     * Get the people of the planned load.
+     *
+     * @return People of the planned load.
+     */
+    public int getPlannedPeople() {
+        return this.plannedPeople;
+    }
+
+    /**
+     * Get the weight of the planned load.
+     *
+     * @return Weight of the planned load.
+     */
+    public double getPlannedWeight() {
+        return this.plannedGrams / GRAMS;
+    }
+
+    /**
+     * Get the number of people deferred to the next trips.
+     *
+     * @return Deferred people.
+     */
+    public int getDeferred() {
+        return this.size;
+    }
+
+    // -------------------------------------------------------------------------------- Constructors
+
+    /**
+     * Create the boarding planner.
+     *
+     * @param maxPeople Maximum people of a load.
+     * @param maxWeight Maximum weight of a load, the weight of the load must stay smaller.
+     * @param window    Look-ahead window, deferred people that can be overtaken, 0 for strict
+     *                  first in first out.
+     * @param maxSkips  Maximum times a deferred person can be overtaken.
+     */
+    public BoardingPlanner(int maxPeople, double maxWeight, int window, int maxSkips) {
+        if (maxPeople <= 0 || !(maxWeight > 0) || window < 0 || maxSkips < 0) {
+            throw new IllegalArgumentException("Invalid boarding planner limits.");
+        }
+
+        this.maxPeople = maxPeople;
+        this.maxGrams = toGrams(maxWeight);
+        this.window = window;
+        this.maxSkips = maxSkips;
+        this.deferred = new int[16];
+        this.deferredGrams = new long[16];
+        this.deferredAt = new long[16];
+    }
+
+    /**
+     * Create the boarding planner with the default window and maximum skips.
+     *
+     * @param maxPeople Maximum people of a load.
+     * @param maxWeight Maximum weight of a load, the weight of the load must stay smaller.
+     */
+    public BoardingPlanner(int maxPeople, double maxWeight) {
+        this(maxPeople, maxWeight, DEFAULT_WINDOW, DEFAULT_MAX_SKIPS);
+    }
+
+    // -------------------------------------------------------------------------------- Help Methods
+
+    /**
+     * Convert a weight to grams, rounded as the people sets.
+     *
+     * @param weight Weight.
+     * @return Weight in grams.
+     */
+    private static long toGrams(double weight) {
+        return Math.round(weight * GRAMS);
+    }
+
+    /**
+     * Get the index in the deferred arrays of a position in the deferred queue.
+     *
+     * @param position Position in the deferred queue.
+     * @return Index in the deferred arrays.
+     */
+    private int index(int position) {
+        return (this.head + position) & (this.deferred.length - 1);
+    }
+
+    /**
+     * Does a weight fit in the planned load.
+     *
+     * @param grams Weight in grams.
+     * @return True if the person fits.
+     */
+    private boolean fits(long grams) {
+        return this.plannedPeople < this.maxPeople && this.plannedGrams + grams < this.maxGrams;
+    }
+
+    /**
+     * Can a person overtake the deferred people at the head of the deferred queue.
+     *
+     * @param overtaken Deferred people before the person.
+     * @return True if there are no deferred people before the person, or if they are within the
+     * window and the first of them was not overtaken too many times.
+     */
+    private boolean canOvertake(int overtaken) {
+        return overtaken == 0
+                || overtaken <= this.window && this.planned - this.deferredAt[this.index(0)] < this.maxSkips;
+    }
+
+    /**
+     * Plan a person in the load.
+     *
+     * @param grams Weight of the person in grams.
+     */
+    private void plan(long grams) {
+        this.plannedPeople++;
+        this.plannedGrams += grams;
+        this.planned++;
+    }
+
+    /**
+     * Grow the deferred arrays if they are full.
+     */
+    private void grow() {
+        if (this.size == this.deferred.length) {
+            int length = this.deferred.length * 2;
+            int[] passengers = new int[length];
+            long[] weights = new long[length];
+            long[] times = new long[length];
+
+            for (int i = 0; i < this.size; i++) {
+                passengers[i] = this.deferred[this.index(i)];
+                weights[i] = this.deferredGrams[this.index(i)];
+                times[i] = this.deferredAt[this.index(i)];
+            }
+
+            this.deferred = passengers;
+            this.deferredGrams = weights;
+            this.deferredAt = times;
+            this.head = 0;
+        }
+    }
+
+    /**
+     * Defer a person at the end of the deferred queue.
+     *
+     * @param passenger Passenger.
+     * @param grams     Weight of the passenger in grams.
+     */
+    private void defer(int passenger, long grams) {
+        this.grow();
+
+        int index = this.index(this.size++);
+        this.deferred[index] = passenger;
+        this.deferredGrams[index] = grams;
+        this.deferredAt[index] = this.planned;
+    }
+
+    // ----------------------------------------------------------------------------- General Methods
+
+    /**
+     * A person joins the queue, plan it in the load of the next cabin or defer it.
+     *
+     * @param passenger Passenger.
+     * @param weight    Weight of the passenger.
+     * @return True if the person is planned in the load of the next cabin.
+     */
+    public boolean join(int passenger, double weight) {
+        long grams = toGrams(weight);
+
+        if (this.fits(grams) && this.canOvertake(this.size)) {
+            this.plan(grams);
+            return true;
+        }
+
+        this.defer(passenger, grams);
+        return false;
+    }
+
+    /**
+     * The cabin departed with the planned load, start the plan of the next load with the deferred
+     * people at the head of the queue, in order and with the same overtaking limits.
+     *
+     * @param planned Receive the deferred passengers planned in the next load, in order.
+     * @return Number of deferred passengers planned.
+     */
+    public int depart(IntConsumer planned) {
+        this.plannedPeople = 0;
+        this.plannedGrams = 0;
+
+        int scanned = 0;
+        int kept = 0;
+        int count = 0;
+
+        while (scanned < this.size && this.plannedPeople < this.maxPeople && this.canOvertake(kept)) {
+            int index = this.index(scanned);
+            long grams = this.deferredGrams[index];
+
+            if (this.fits(grams)) {
+                this.plan(grams);
+                planned.accept(this.deferred[index]);
+                count++;
+            } else {
+                int target = this.index(kept);
+                this.deferred[target] = this.deferred[index];
+                this.deferredGrams[target] = grams;
+                this.deferredAt[target] = kept == 0 ? this.planned : this.deferredAt[index];
+                kept++;
+            }
+            scanned++;
+        }
+
+        for (int i = kept - 1, j = scanned - 1; i >= 0; i--, j--) {
+            int from = this.index(i);
+            int to = this.index(j);
+            this.deferred[to] = this.deferred[from];
+            this.deferredGrams[to] = this.deferredGrams[from];
+            this.deferredAt[to] = this.deferredAt[from];
+        }
+
+        this.head = this.index(scanned - kept);
+        this.size -= scanned - kept;
+
+        if (kept == 0 && this.size > 0) {
+            this.deferredAt[this.head] = this.planned;
+        }
+
+        return count;
+    }
+
+    /**
+     * A planned person did not enter the load, remove it from the planned load.
+     *
+     * @param weight Weight of the person.
+     */
+    public void cancel(double weight) {
+        this.plannedPeople--;
+        this.plannedGrams -= toGrams(weight);
+    }
+
+    /**
+     * A planned person did not enter the load, remove it from the planned load and defer it at
+     * the head of the deferred queue, it is the first planned in the next load.
+     *
+     * @param passenger Passenger.
+     * @param weight    Weight of the passenger.
+     */
+    public void requeue(int passenger, double weight) {
+        this.cancel(weight);
+        this.grow();
+
+        this.head = this.index(-1);
+        this.size++;
+        this.deferred[this.head] = passenger;
+        this.deferredGrams[this.head] = toGrams(weight);
+        this.deferredAt[this.head] = this.planned;
+    }
+
+    // --------------------------------------------------------------------------- Static Components
+}
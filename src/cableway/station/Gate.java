@@ -24,16 +24,25 @@
 
 package cableway.station;
 
+import cableway.CablewayActionManager;
+import cableway.CablewayException;
 import cableway.people.skypass.Skipass;
 import cableway.people.skypass.SkipassManager;
 
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
 /**
  * Cableway gate.
  *
  * @author giuliobosco
- * @version 1.0.1
+ * @version 1.2.1
  */
-public class Gate extends Thread {
+public class Gate {
     // ------------------------------------------------------------------------------------ Costants
 
     /**
@@ -42,6 +51,11 @@ public class Gate extends Thread {
      */
     private static final boolean DEFAUL_BLUE_LINE = false;
 
+    /**
+     * Time the gate stays open after an accepted skipass, in milliseconds.
+     */
+    public static final long OPEN_TIME = 500;
+
     // ---------------------------------------------------------------------------------- Attributes
 
     /**
@@ -52,13 +66,59 @@ public class Gate extends Thread {
     /**
      * Gate is open.
      */
-    private boolean open;
+    private volatile boolean open;
 
     /**
      * Cableway skipass manager.
      */
     private SkipassManager skipassManager;
 
+    /**
+     * Anti-passback of the gate, null if the gate has no anti-passback.
+     */
+    private volatile AntiPassback antiPassback;
+
+    /**
+     * Swipe ledger of the gate, null if the swipes are not recorded.
+     */
+    private volatile SwipeLedger ledger;
+
+    /**
+     * Cableway action manager, receives the errors of the swipe ledger, null if they are not
+     * reported.
+     */
+    private volatile CablewayActionManager cablewayActionManager;
+
+    /**
+     * Number of the gate in its station.
+     */
+    private int number;
+
+    /**
+     * Passage of the gate, one person at a time, in arrival order.
+     */
+    private final Semaphore passage = new Semaphore(1, true);
+
+    /**
+     * Gate occupied by a person.
+     */
+    private final AtomicBoolean occupied = new AtomicBoolean();
+
+    /**
+     * People waiting for the gate or passing it.
+     */
+    private final AtomicInteger queueLength = new AtomicInteger();
+
+    /**
+     * Scheduler of the automatic close, null if the gate is closed at once.
+     */
+    private volatile ScheduledExecutorService scheduler;
+
+    /**
+     * Number of openings of the gate, a scheduled close closes only its own opening.
+     */
+    private final AtomicLong openings = new AtomicLong();
+
     // --------------------------------------------------------------------------- Getters & Setters
 
     /**
@@ -88,6 +148,78 @@ public class Gate extends Thread {
         this.open = open;
     }
 
+    /**
+     * Set the anti-passback of the gate, shared with the other gates of the station.
+     *
+     * @param antiPassback Anti-passback, null for no anti-passback.
+     */
+    public void setAntiPassback(AntiPassback antiPassback) {
+        this.antiPassback = antiPassback;
+    }
+
+    /**
+     * Get the anti-passback of the gate.
+     *
+     * @return Anti-passback, null if the gate has no anti-passback.
+     */
+    public AntiPassback getAntiPassback() {
+        return this.antiPassback;
+    }
+
+    /**
+     * Set the swipe ledger where the gate records the swipes.
+     *
+     * @param ledger Swipe ledger, null to not record the swipes.
+     */
+    public void setLedger(SwipeLedger ledger) {
+        this.ledger = ledger;
+    }
+
+    /**
+     * Set the cableway action manager, receives the errors of the swipe ledger.
+     *
+     * @param cablewayActionManager Cableway action manager, null to not report the errors.
+     */
+    public void setCablewayActionManager(CablewayActionManager cablewayActionManager) {
+        this.cablewayActionManager = cablewayActionManager;
+    }
+
+    /**
+     * Set the number of the gate in its station.
+     *
+     * @param number Number of the gate.
+     */
+    public void setNumber(int number) {
+        this.number = number;
+    }
+
+    /**
+     * Get the number of the gate in its station.
+     *
+     * @return Number of the gate.
+     */
+    public int getNumber() {
+        return this.number;
+    }
+
+    /**
+     * Set the scheduler of the automatic close, shared with the other gates.
+     *
+     * @param scheduler Scheduler, null to close the gate at once after an accepted skipass.
+     */
+    public void setScheduler(ScheduledExecutorService scheduler) {
+        this.scheduler = scheduler;
+    }
+
+    /**
+     * Get the number of people waiting for the gate or passing it.
+     *
+     * @return Number of people waiting for the gate or passing it.
+     */
+    public int getQueueLength() {
+        return this.queueLength.get();
+    }
+
     // -------------------------------------------------------------------------------- Constructors
 
     /**
@@ -111,58 +243,157 @@ public class Gate extends Thread {
     }
 
     // -------------------------------------------------------------------------------- Help Methods
-    // ----------------------------------------------------------------------------- General Methods
 
     /**
-     * Check the skipass.
+     * Register the passage of the skipass in the anti-passback.
      *
-     * @param skipass Skipass to check.
-     * @return True if the skipass is valid.
+     * @param skipassId Identifier of the skipass passing the gate.
+     * @param now       Time of the passage in milliseconds.
+     * @return True if the skipass did not pass within the anti-passback interval.
      */
-    public boolean open(Skipass skipass) {
-        if (this.isBlueline()) {
-            if (this.skipassManager.isValid(skipass) && this.skipassManager.isBlueline(skipass)) {
-                this.setOpen(true);
-                return true;
-            }
-        } else {
-            if (!this.isOpen()) {
-                if (this.skipassManager.isValid(skipass)) {
-                    this.setOpen(true);
-                    return true;
+    private boolean enter(long skipassId, long now) {
+        AntiPassback antiPassback = this.antiPassback;
+        return antiPassback == null || antiPassback.tryEnter(skipassId, now);
+    }
+
+    /**
+     * Record the swipe in the ledger. The passage never fails for the ledger: a ledger closed or
+     * failed is detached from the gate and the error is reported to the cableway action manager.
+     *
+     * @param skipassId Identifier of the skipass swiped.
+     * @param accepted  True if the skipass was accepted.
+     * @param now       Time of the swipe in milliseconds.
+     */
+    private void record(long skipassId, boolean accepted, long now) {
+        SwipeLedger ledger = this.ledger;
+
+        if (ledger != null) {
+            int flags = (accepted ? SwipeLedger.ACCEPTED : 0) | (this.isBlueline() ? SwipeLedger.BLUELINE : 0);
+
+            try {
+                ledger.record(now, skipassId, this.number, flags);
+            } catch (IllegalStateException ise) {
+                if (this.ledger == ledger) {
+                    this.ledger = null;
+                }
+
+                CablewayActionManager cablewayActionManager = this.cablewayActionManager;
+                if (cablewayActionManager != null) {
+                    cablewayActionManager.exceptionThrower(new CablewayException(
+                            "Gate " + this.number + " swipe ledger detached: " + ise.getMessage(),
+                            CablewayException.DANGER
+                    ));
                 }
-            } else {
-                return true;
             }
         }
-
-        return false;
     }
 
     /**
-     * Close the gate.
+     * Schedule the automatic close of the gate after {@link #OPEN_TIME}, close the gate at once if
+     * the gate has no scheduler, so the gate is never held.
      */
-    public void close() {
-        this.open = false;
+    private void scheduleClose() {
+        ScheduledExecutorService scheduler = this.scheduler;
+
+        if (scheduler != null) {
+            long opening = this.openings.incrementAndGet();
+            scheduler.schedule(() -> {
+                if (this.openings.get() == opening) {
+                    this.close();
+                }
+            }, OPEN_TIME, TimeUnit.MILLISECONDS);
+        } else {
+            this.close();
+        }
     }
 
+    // ----------------------------------------------------------------------------- General Methods
+
     /**
-     * Run the gate, keep it closed.
+     * Wait the gate, the waiting person is parked and uses no cpu. The gates are given in
+     * arrival order.
+     *
+     * @throws InterruptedException Interrupted while waiting the gate.
      */
-    @Override
-    public void run() {
+    public void acquire() throws InterruptedException {
+        this.queueLength.incrementAndGet();
+
         try {
-            while (this.isInterrupted()) {
-                if (this.isOpen()) {
-                    Thread.sleep(500);
-                    this.close();
-                }
-            }
+            this.passage.acquire();
         } catch (InterruptedException ie) {
+            this.queueLength.decrementAndGet();
+            throw ie;
+        }
 
+        this.occupied.set(true);
+    }
+
+    /**
+     * Release the gate to the next waiting person, if occupied.
+     */
+    public void release() {
+        if (this.occupied.compareAndSet(true, false)) {
+            this.queueLength.decrementAndGet();
+            this.passage.release();
         }
     }
 
+    /**
+     * Check the skipass. A rejected skipass releases the gate, an accepted skipass opens it for
+     * {@link #OPEN_TIME}, or lets the person pass at once if the gate has no scheduler. Every
+     * swipe is checked and recorded, also on a gate already open.
+     *
+     * @param skipass Skipass to check.
+     * @return True if the skipass is valid.
+     */
+    public boolean open(Skipass skipass) {
+        return this.open(skipass != null ? skipass.getId() : 0);
+    }
+
+    /**
+     * Check the skipass by its identifier, as {@link #open(Skipass)}.
+     *
+     * @param skipassId Skipass identifier, 0 for no skipass.
+     * @return True if the skipass is valid.
+     */
+    public boolean open(long skipassId) {
+        return this.open(skipassId, System.currentTimeMillis());
+    }
+
+    /**
+     * Check the skipass by its identifier at a time, as {@link #open(Skipass)}. The validity
+     * window, the anti-passback and the swipe record use the given time, so a simulated gate
+     * never reads the wall clock.
+     *
+     * @param skipassId Skipass identifier, 0 for no skipass.
+     * @param now       Time of the swipe in milliseconds.
+     * @return True if the skipass is valid.
+     */
+    public boolean open(long skipassId, long now) {
+        boolean accepted = this.skipassManager.isValid(skipassId, now)
+                && (!this.isBlueline() || this.skipassManager.isBlueline(skipassId))
+                && this.enter(skipassId, now);
+
+        if (accepted) {
+            this.setOpen(true);
+            this.scheduleClose();
+        } else if (!this.isOpen()) {
+            this.release();
+        }
+        this.record(skipassId, accepted, now);
+
+        return accepted;
+    }
+
+    /**
+     * Close the gate and release it to the next waiting person.
+     */
+    public void close() {
+        this.openings.incrementAndGet();
+        this.open = false;
+        this.release();
+    }
+
     // --------------------------------------------------------------------------- Static Components
 
 }
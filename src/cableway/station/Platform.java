@@ -26,16 +26,18 @@ package cableway.station;
 
 import cableway.CablewayActionManager;
 import cableway.CablewayException;
+import cableway.TimedSequence;
 import cableway.cabin.Cabin;
 
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Cableway station platform.
  *
  * @author giuliobosco
- * @version 1.1.2
+ * @version 1.3
  */
 public class Platform extends Thread implements ActionListener {
     // ------------------------------------------------------------------------------------ Costants
@@ -45,22 +47,27 @@ public class Platform extends Thread implements ActionListener {
      */
     private final long PEOPLE_EXIT_TIME = 10000;
 
+    /**
+     * Time for enter the platform, once the internal doors are open.
+     */
+    private final long PEOPLE_ENTER_TIME = 500;
+
     // ---------------------------------------------------------------------------------- Attributes
 
     /**
      * Platform internal door is open for the cabin.
      */
-    private boolean internalDoorOpen;
+    private volatile boolean internalDoorOpen;
 
     /**
      * Platform external door is open for the cabin 0.
      */
-    private boolean externalDoorOpen;
+    private volatile boolean externalDoorOpen;
 
     /**
      * Platform ready to move.
      */
-    private boolean ready;
+    private volatile boolean ready;
 
     /**
      * Platform cabin.
@@ -68,9 +75,9 @@ public class Platform extends Thread implements ActionListener {
     private Cabin cabin;
 
     /**
-     * Platform cable position.
+     * Position of the platform on the line, where the cabin stops.
      */
-    private double cablePosition;
+    private double trackPosition;
 
     /**
      * Cableway action manager.
@@ -116,7 +123,7 @@ public class Platform extends Thread implements ActionListener {
      * @return True if the cabin is in this platform.
      */
     public boolean isCabinHere() {
-        return this.cabin.getCable().getPosition() == this.cablePosition && this.cabin.getCable().getSpeed() == 0;
+        return this.cabin.isAt(this.trackPosition) && this.cabin.getCable().getSpeed() == 0;
     }
 
     // -------------------------------------------------------------------------------- Constructors
@@ -125,12 +132,12 @@ public class Platform extends Thread implements ActionListener {
      * Create the platform with the platform cabin.
      *
      * @param cabin Platform cabin.
-     * @param cablePosition Platform cable position.
+     * @param trackPosition Position of the platform on the line.
      * @param cablewayActionManager Cableway action mangaer.
      */
-    public Platform(Cabin cabin, double cablePosition, CablewayActionManager cablewayActionManager) {
+    public Platform(Cabin cabin, double trackPosition, CablewayActionManager cablewayActionManager) {
         this.cabin = cabin;
-        this.cablePosition = cablePosition;
+        this.trackPosition = trackPosition;
         this.cablewayActionManager = cablewayActionManager;
         this.internalDoorOpen = false;
         this.externalDoorOpen = false;
@@ -146,7 +153,7 @@ public class Platform extends Thread implements ActionListener {
     public void openInternalDoor() throws CablewayException {
         this.internalDoorOpen = false;
 
-        if (this.cabin.getCable().getPosition() != this.cablePosition) {
+        if (!this.cabin.isAt(this.trackPosition)) {
             throw new CablewayException("Cable wrong position, can't open doors", CablewayException.DANGER);
         } else if (this.isReady()) {
             throw new CablewayException("Cabin ready to move, can't open doors", CablewayException.DANGER);
@@ -170,7 +177,7 @@ public class Platform extends Thread implements ActionListener {
     public void openExternalDoor() throws CablewayException {
         this.externalDoorOpen = false;
 
-        if (this.cabin.getCable().getPosition() != this.cablePosition) {
+        if (!this.cabin.isAt(this.trackPosition)) {
             throw new CablewayException("Cable wrong position, can't open doors", CablewayException.DANGER);
         } else if (this.isReady()) {
             throw new CablewayException("Cabin ready to move, can't open doors", CablewayException.DANGER);
@@ -192,7 +199,7 @@ public class Platform extends Thread implements ActionListener {
      * @throws CablewayException Door open while moving.
      */
     public void check() throws CablewayException {
-        if (this.cabin.getCable().getPosition() != this.cablePosition) {
+        if (!this.cabin.isAt(this.trackPosition)) {
             if (this.internalDoorOpen || this.externalDoorOpen) {
                 throw new CablewayException("Door open while moving.", CablewayException.FATAL);
             }
@@ -206,32 +213,30 @@ public class Platform extends Thread implements ActionListener {
     // ----------------------------------------------------------------------------- General Methods
 
     /**
-     * Arrived cabin to the platform.
+     * Arrived cabin to the platform, open the external doors, after the exit time open the
+     * internal doors and after the enter time close the external doors, each step on the
+     * cableway scheduler, so the sequence never occupies a thread.
      *
-     * @throws CablewayException Cabin errors.
+     * @return Completion of the arrival sequence.
      */
-    private void cabinArrived() throws CablewayException {
-        try {
-            this.setReady(false);
-            this.cabin.setReady(false);
-
-            this.openExternalDoor();
-            this.cabin.openExternallDoor();
-
-            Thread.sleep(PEOPLE_EXIT_TIME);
-
-            this.openInternalDoor();
-            this.cabin.openInternalDoor();
-
-            Thread.sleep(500);
-
-            this.closeExternalDoor();
-            this.cabin.closeExternalDoor();
-
-            Thread.sleep(1);
-        } catch (InterruptedException ie) {
-            this.cablewayActionManager.exceptionThrower(ie);
-        }
+    private CompletableFuture<Void> cabinArrived() {
+        return new TimedSequence(this.cablewayActionManager)
+                .then(() -> {
+                    this.setReady(false);
+                    this.cabin.setReady(false);
+
+                    this.openExternalDoor();
+                    this.cabin.openExternallDoor();
+                })
+                .after(PEOPLE_EXIT_TIME, () -> {
+                    this.openInternalDoor();
+                    this.cabin.openInternalDoor();
+                })
+                .after(PEOPLE_ENTER_TIME, () -> {
+                    this.closeExternalDoor();
+                    this.cabin.closeExternalDoor();
+                })
+                .end();
     }
 
     /**
@@ -28,18 +28,37 @@ import cableway.CablewayActionManager;
 import cableway.CablewayException;
 import cableway.cabin.Cabin;
 import cableway.cable.Cable;
+import cableway.people.FullSetException;
 import cableway.people.PeopleSet;
+import cableway.people.Person;
 
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
- * Cableway station class.
+ * Cableway station class. The people entering the station are planned in the load of the next
+ * cabin by a {@link BoardingPlanner}: a person that does not fit waits for a next cabin, and a
+ * lighter person behind can take the place, within the look-ahead window and the skip limit of
+ * the planner.
+ *
+ * <p>The people enter the station under the boarding lock: the planner is not thread safe and its
+ * plan must stay the load of the in people, so joining the planner and adding the person to the
+ * in people, as the handover of the people sets to a cabin and the start of the next plan, are a
+ * single step. The gates are serialized only for this step, the people sets stay lock-free for
+ * the cabins and the readers of the station.</p>
  *
  * @author giuliobosco
- * @version 1.1.2
+ * @version 1.4
  */
 public class Station extends Thread implements ActionListener {
     // ------------------------------------------------------------------------------------ Costants
@@ -59,7 +78,7 @@ public class Station extends Thread implements ActionListener {
     /**
      * People ready to step up on the cabin.
      */
-    private PeopleSet readyPeople;
+    private volatile PeopleSet readyPeople;
 
     /**
      * Is the in people area active, if is active will be used 2 people sets, else will be used only
@@ -70,7 +89,7 @@ public class Station extends Thread implements ActionListener {
     /**
      * People ready to go in the ready people space.
      */
-    private PeopleSet inPeople;
+    private volatile PeopleSet inPeople;
 
     /**
      * Cableway cable.
@@ -78,14 +97,15 @@ public class Station extends Thread implements ActionListener {
     private Cable cable;
 
     /**
-     * Platform for cabin 0.
+     * Position of the station on the line, 0 for the lower station, the length of the cable for
+     * the upper station.
      */
-    private Platform platform0;
+    private double trackPosition;
 
     /**
-     * Platform for cabin 1.
+     * Platforms of the station, one for each cabin of the line.
      */
-    private Platform platform1;
+    private Map<Cabin, Platform> platforms;
 
     /**
      * Cableway action mangaer.
@@ -97,6 +117,41 @@ public class Station extends Thread implements ActionListener {
      */
     private List<Gate> gates;
 
+    /**
+     * Anti-passback shared by the gates of the station.
+     */
+    private AntiPassback antiPassback;
+
+    /**
+     * Swipe ledger of the gates of the station, null if the swipes are not recorded.
+     */
+    private SwipeLedger ledger;
+
+    /**
+     * Boarding planner of the load of the next cabin.
+     */
+    private final BoardingPlanner planner;
+
+    /**
+     * People deferred by the planner to a next cabin, by ticket.
+     */
+    private final Map<Integer, Person> deferred;
+
+    /**
+     * Ticket of the next person entering the station.
+     */
+    private int nextTicket;
+
+    /**
+     * Lock of the boarding planner and of the people sets handover.
+     */
+    private final ReentrantLock boardingLock = new ReentrantLock();
+
+    /**
+     * Signaled when a boarding frees space in the people sets of the station.
+     */
+    private final Condition boarded = this.boardingLock.newCondition();
+
     // --------------------------------------------------------------------------- Getters & Setters
 
     /**
@@ -158,12 +213,38 @@ public class Station extends Thread implements ActionListener {
     }
 
     /**
-     * Set the gates of the station.
+     * Get the position of the station on the line.
+     *
+     * @return Position of the station, 0 for the lower station, the length of the cable for the
+     * upper station.
+     */
+    public double getTrackPosition() {
+        return this.trackPosition;
+    }
+
+    /**
+     * Get the platform of a cabin.
+     *
+     * @param cabin Cabin of the line.
+     * @return Platform of the cabin, null if the cabin is not of the line.
+     */
+    public Platform getPlatform(Cabin cabin) {
+        return this.platforms.get(cabin);
+    }
+
+    /**
+     * Set the gates of the station, every gate is added as {@link #addGate(Gate)}, with the
+     * anti-passback, the swipe ledger, the scheduler and the cableway action manager of the
+     * station.
      *
      * @param gates Gates of the station.
      */
     public void setGates(List<Gate> gates) {
-        this.gates = gates;
+        this.gates = new CopyOnWriteArrayList<>();
+
+        for (Gate gate : gates) {
+            this.addGate(gate);
+        }
     }
 
     /**
@@ -181,98 +262,254 @@ public class Station extends Thread implements ActionListener {
      * @param gate Gate to add.
      */
     public void addGate(Gate gate) {
+        gate.setAntiPassback(this.antiPassback);
+        gate.setLedger(this.ledger);
+        gate.setNumber(this.getGates().size());
+        gate.setScheduler(this.cablewayActionManager.getScheduler());
+        gate.setCablewayActionManager(this.cablewayActionManager);
         this.getGates().add(gate);
     }
 
-    // -------------------------------------------------------------------------------- Constructors
+    /**
+     * Set the swipe ledger where the gates of the station record the swipes.
+     *
+     * @param ledger Swipe ledger, null to not record the swipes.
+     */
+    public void setLedger(SwipeLedger ledger) {
+        this.ledger = ledger;
+
+        for (Gate gate : this.getGates()) {
+            gate.setLedger(ledger);
+        }
+    }
 
     /**
-     * Init upper platform.
+     * Get the anti-passback shared by the gates of the station.
      *
-     * @param cabin0 Cableway cabin 0.
-     * @param cabin1 Cableway cabin 1.
-     * @throws CablewayException Cableway exception.
+     * @return Anti-passback of the station.
      */
-    private void initUpperStation(Cabin cabin0, Cabin cabin1) throws CablewayException {
-        this.platform0 = new Platform(cabin0, cabin0.getCable().getLength(), this.cablewayActionManager);
-        this.platform1 = new Platform(cabin1, 0, this.cablewayActionManager);
+    public AntiPassback getAntiPassback() {
+        return this.antiPassback;
     }
 
     /**
-     * Init lower platform.
+     * Get the number of people waiting for a next cabin, deferred by the boarding planner.
      *
-     * @param cabin0 Cableway cabin 0.
-     * @param cabin1 Cableway cabin 1.
-     * @throws CablewayException Cableway exception.
+     * @return People deferred to a next cabin.
      */
-    private void initLowerStation(Cabin cabin0, Cabin cabin1) throws CablewayException {
-        this.platform0 = new Platform(cabin0, 0, this.cablewayActionManager);
-        this.platform1 = new Platform(cabin1, cabin1.getCable().getLength(), this.cablewayActionManager);
+    public int getDeferred() {
+        this.boardingLock.lock();
+        try {
+            return this.planner.getDeferred();
+        } finally {
+            this.boardingLock.unlock();
+        }
     }
 
+    // -------------------------------------------------------------------------------- Constructors
+
     /**
-     * Create the station with the position of the station and the two cabins.
+     * Create the station with the position of the station and the cabins of the line. A platform
+     * is created for every cabin, where the cabin stops at the station.
      *
      * @param position              Position of the cableway station.
-     * @param cabin0                Cableway cabin 0.
-     * @param cabin1                Cableway cabin 1.
+     * @param cabins                Cabins of the line, on the same cable.
      * @param cablewayActionManager Cableway Action Manager.
-     * @throws CablewayException Cableway exception, error with the cabin or the cable.
+     * @throws CablewayException Cableway exception, error with the cabins or the cable.
      */
-    public Station(int position, Cabin cabin0, Cabin cabin1, CablewayActionManager cablewayActionManager) throws CablewayException {
+    public Station(int position, List<Cabin> cabins, CablewayActionManager cablewayActionManager) throws CablewayException {
         this.cablewayActionManager = cablewayActionManager;
-        this.setGates(new ArrayList<>());
-
-        if (cabin0 != cabin1) {
-            if (cabin0.getCable() == cabin1.getCable()) {
-                if (position == LOWER_STATION) {
-                    this.initLowerStation(cabin0, cabin1);
-                } else if (position == UPPER_STATION) {
-                    this.initUpperStation(cabin0, cabin1);
-                } else {
-                    throw new CablewayException("Wrong station position", CablewayException.FATAL);
-                }
-            } else {
+        this.readyPeople = new PeopleSet(Cabin.MAX_PEOPLE);
+        this.inPeople = new PeopleSet(Cabin.MAX_PEOPLE);
+        this.antiPassback = new AntiPassback();
+        this.planner = new BoardingPlanner(Cabin.MAX_PEOPLE, Cabin.MAX_WEIGHT);
+        this.deferred = new HashMap<>();
+        this.setGates(Collections.emptyList());
+
+        if (cabins.isEmpty()) {
+            throw new CablewayException("Station without cabins.", CablewayException.FATAL);
+        }
+        this.cable = cabins.get(0).getCable();
+
+        if (position == LOWER_STATION) {
+            this.trackPosition = 0;
+        } else if (position == UPPER_STATION) {
+            this.trackPosition = this.cable.getLength();
+        } else {
+            throw new CablewayException("Wrong station position", CablewayException.FATAL);
+        }
+
+        Map<Cabin, Platform> platforms = new IdentityHashMap<>();
+        for (Cabin cabin : cabins) {
+            if (cabin.getCable() != this.cable) {
                 throw new CablewayException("Wrong cable connected to the cabins.", CablewayException.FATAL);
             }
-        } else {
-            throw new CablewayException("Cabins cant't be the same.", CablewayException.FATAL);
+            if (platforms.put(cabin, new Platform(cabin, this.trackPosition, this.cablewayActionManager)) != null) {
+                throw new CablewayException("Cabins cant't be the same.", CablewayException.FATAL);
+            }
         }
+        this.platforms = Collections.unmodifiableMap(platforms);
+    }
+
+    /**
+     * Create the station with the position of the station and the two cabins of a jig-back line.
+     *
+     * @param position              Position of the cableway station.
+     * @param cabin0                Cableway cabin 0.
+     * @param cabin1                Cableway cabin 1.
+     * @param cablewayActionManager Cableway Action Manager.
+     * @throws CablewayException Cableway exception, error with the cabin or the cable.
+     */
+    public Station(int position, Cabin cabin0, Cabin cabin1, CablewayActionManager cablewayActionManager) throws CablewayException {
+        this(position, Arrays.asList(cabin0, cabin1), cablewayActionManager);
     }
 
     // -------------------------------------------------------------------------------- Help Methods
 
     /**
      * Move the people from the ready people to the cabin, from the in people to the ready people.
+     * The people sets are swapped, not copied: the ready people set is sealed and handed over to
+     * the cabin; the emptied people set of the cabin is reused for the people entering the
+     * station. Must be called holding the boarding lock.
      *
      * @param cabin Destination cabin of the people.
      * @throws CablewayException Cableway exception, errors on the cableway
      */
     private void movePeople(Cabin cabin) throws CablewayException {
-        cabin.setPeople(this.getReadyPeople());
+        PeopleSet emptied = cabin.getPeople();
+        PeopleSet ready = this.getReadyPeople();
 
         if (this.isInPeopleActive()) {
-            this.setReadyPeople(this.getInPeople());
+            this.setReadyPeople(this.inPeople);
+            this.setInPeople(emptied);
+        } else {
+            this.setReadyPeople(emptied);
+        }
+
+        ready.seal();
+        cabin.setPeople(ready);
+    }
+
+    /**
+     * Board a cabin arrived at the station, empty it and move the ready people in it. The
+     * boarding planner starts the plan of the next load with the people waiting for a next cabin,
+     * the planned ones enter the station. A planned person that does not enter the in people is
+     * deferred again, first in the next plan.
+     *
+     * @param cabin Cabin arrived at the station.
+     * @throws CablewayException Cableway exception, errors on the cableway.
+     */
+    public void boardCabin(Cabin cabin) throws CablewayException {
+        cabin.emptyPeople();
+
+        this.boardingLock.lock();
+        try {
+            this.movePeople(cabin);
+
+            List<Integer> planned = new ArrayList<>();
+            this.planner.depart(planned::add);
+
+            List<Integer> refused = new ArrayList<>();
+            for (int ticket : planned) {
+                try {
+                    this.getInPeople().addPerson(this.deferred.get(ticket), Cabin.MAX_WEIGHT);
+                    this.deferred.remove(ticket);
+                } catch (FullSetException fse) {
+                    refused.add(ticket);
+                }
+            }
+
+            for (int i = refused.size() - 1; i >= 0; i--) {
+                int ticket = refused.get(i);
+                this.planner.requeue(ticket, this.deferred.get(ticket).getWeight());
+            }
+        } finally {
+            this.boarded.signalAll();
+            this.boardingLock.unlock();
         }
+    }
 
-        this.getInPeople().clear();
+    /**
+     * Add a person entering the station. The boarding planner plans the person in the load of the
+     * next cabin, then the person is added to the in people, or defers the person to a next
+     * cabin, then the person is added to the in people by a next boarding.
+     *
+     * @param person Person entering the station.
+     * @return True if the person is in the load of the next cabin, false if the person waits for
+     * a next cabin.
+     * @throws FullSetException No more people can be added to the in people, or the weight of the
+     *                          person is over the free weight of a cabin.
+     */
+    public boolean addPerson(Person person) throws FullSetException {
+        this.boardingLock.lock();
+        try {
+            int ticket = this.nextTicket++;
+
+            if (this.planner.join(ticket, person.getWeight())) {
+                try {
+                    this.getInPeople().addPerson(person, Cabin.MAX_WEIGHT);
+                } catch (FullSetException fse) {
+                    this.planner.cancel(person.getWeight());
+                    throw fse;
+                }
+                return true;
+            }
+
+            this.deferred.put(ticket, person);
+            return false;
+        } finally {
+            this.boardingLock.unlock();
+        }
     }
 
     /**
-     * Get an free gate.
+     * Enter the station, add the person as {@link #addPerson(Person)}. If the in people are full
+     * the person is parked until a boarding frees space, then it tries again.
      *
-     * @return Free gate.
+     * @param person Person entering the station.
+     * @return True if the person is in the load of the next cabin, false if the person waits for
+     * a next cabin.
+     * @throws InterruptedException Interrupted while waiting a boarding.
      */
-    public Gate getFreeGate() {
-        while (true) {
-            for (Gate gate : this.getGates()) {
-                if (gate.isOpen()) {
-                    return gate;
+    public boolean enter(Person person) throws InterruptedException {
+        this.boardingLock.lock();
+        try {
+            while (true) {
+                try {
+                    return this.addPerson(person);
+                } catch (FullSetException fse) {
+                    this.boarded.await();
                 }
             }
+        } finally {
+            this.boardingLock.unlock();
         }
     }
 
+    /**
+     * Get a free gate, join the gate with the shortest queue and wait for it. The waiting person
+     * is parked, the gate is released by closing it or by a rejected skipass.
+     *
+     * @return Free gate, occupied by the calling person.
+     * @throws InterruptedException Interrupted while waiting the gate.
+     */
+    public Gate getFreeGate() throws InterruptedException {
+        Gate shortest = null;
+
+        for (Gate gate : this.getGates()) {
+            if (shortest == null || gate.getQueueLength() < shortest.getQueueLength()) {
+                shortest = gate;
+            }
+        }
+
+        if (shortest == null) {
+            throw new IllegalStateException("Station without gates.");
+        }
+
+        shortest.acquire();
+        return shortest;
+    }
+
     // ----------------------------------------------------------------------------- General Methods
 
     /**
@@ -285,14 +522,10 @@ public class Station extends Thread implements ActionListener {
         try {
             if (e.getSource().getClass() == Cabin.class) {
                 if (e.getActionCommand().equals(Cabin.ARRIVED)) {
-                    if (this.platform0.isCabinHere()) {
-                        this.platform0.getCabin().emptyPeople();
-
-                        this.movePeople(this.platform0.getCabin());
-                    } else if (this.platform1.isCabinHere()) {
-                        this.platform1.getCabin().emptyPeople();
+                    Platform platform = this.platforms.get((Cabin) e.getSource());
 
-                        this.movePeople(this.platform0.getCabin());
+                    if (platform != null && platform.isCabinHere()) {
+                        this.boardCabin(platform.getCabin());
                     }
                 }
             }
@@ -0,0 +1,518 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2018 giuliobosco.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package cableway.station;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Append-only ledger of the gate swipes, accepted and rejected, for billing and audits.
+ * The gates publish the swipes in a lock free ring, without waiting for the disk; a background
+ * writer appends them to a memory mapped file and commits them in groups, one force of the file
+ * for every batch of swipes. The writer is parked while there are no swipes and woken by the
+ * gates, a gate waits the writer only while the ring is full.
+ *
+ * <p>File layout (little endian): a {@link #HEADER_SIZE} bytes header (magic, version, number
+ * of committed records) followed by the records of {@link #RECORD_SIZE} bytes: time (long),
+ * skipass identifier (long), gate number (int), flags (int).</p>
+ *
+ * @author giuliobosco
+ * @version 1.2
+ */
+public class SwipeLedger implements Closeable {
+    // ------------------------------------------------------------------------------------ Costants
+
+    /**
+     * Accepted swipe flag.
+     */
+    public static final int ACCEPTED = 1;
+
+    /**
+     * Blue line gate flag.
+     */
+    public static final int BLUELINE = 2;
+
+    /**
+     * Size of the file header in bytes.
+     */
+    public static final int HEADER_SIZE = 16;
+
+    /**
+     * Size of a record in bytes.
+     */
+    public static final int RECORD_SIZE = 24;
+
+    /**
+     * Ledger file magic number, "SWPL".
+     */
+    public static final int MAGIC = 0x5357504C;
+
+    /**
+     * Ledger file format version.
+     */
+    public static final int VERSION = 1;
+
+    /**
+     * Default capacity of the ring, in swipes.
+     */
+    public static final int DEFAULT_CAPACITY = 1 << 16;
+
+    /**
+     * Records mapped at once by the writer.
+     */
+    private static final int CHUNK_RECORDS = 1 << 16;
+
+    /**
+     * Records mapped at once by the reader.
+     */
+    private static final int SCAN_RECORDS = 1 << 22;
+
+    /**
+     * Maximum records committed with one force of the file.
+     */
+    private static final int MAX_BATCH = 1 << 14;
+
+    /**
+     * Time a gate waits for the writer while the ring is full, in nanoseconds.
+     */
+    private static final long FULL_WAIT = 100000;
+
+    /**
+     * Closed flag of the tail.
+     */
+    private static final long CLOSED = Long.MIN_VALUE;
+
+    /**
+     * Offset of the magic number in the header.
+     */
+    private static final int MAGIC_OFFSET = 0;
+
+    /**
+     * Offset of the version in the header.
+     */
+    private static final int VERSION_OFFSET = 4;
+
+    /**
+     * Offset of the number of committed records in the header.
+     */
+    private static final int COUNT_OFFSET = 8;
+
+    // ---------------------------------------------------------------------------------- Attributes
+
+    /**
+     * Ledger file channel.
+     */
+    private final FileChannel channel;
+
+    /**
+     * Mapped header of the file.
+     */
+    private final MappedByteBuffer header;
+
+    /**
+     * Mapped chunk of the file being written.
+     */
+    private MappedByteBuffer chunk;
+
+    /**
+     * Index of the mapped chunk.
+     */
+    private long chunkIndex;
+
+    /**
+     * Number of records written in the file.
+     */
+    private long count;
+
+    /**
+     * Times of the swipes in the ring.
+     */
+    private final long[] times;
+
+    /**
+     * Skipasses identifiers of the swipes in the ring.
+     */
+    private final long[] skipasses;
+
+    /**
+     * Gate numbers of the swipes in the ring.
+     */
+    private final int[] gates;
+
+    /**
+     * Flags of the swipes in the ring.
+     */
+    private final int[] flags;
+
+    /**
+     * Sequence published in every ring slot, -1 if never published.
+     */
+    private final AtomicLongArray published;
+
+    /**
+     * Next sequence claimed by a gate, with the {@link #CLOSED} flag once the ledger is closing.
+     */
+    private final AtomicLong tail;
+
+    /**
+     * Next sequence read by the writer.
+     */
+    private volatile long head;
+
+    /**
+     * Background writer.
+     */
+    private final Thread writer;
+
+    /**
+     * Writer parked waiting for new swipes.
+     */
+    private volatile boolean idle;
+
+    /**
+     * Error that stopped the writer, null while the writer is running.
+     */
+    private volatile IOException failure;
+
+    // --------------------------------------------------------------------------- Getters & Setters
+
+    /**
+     * Get the number of records committed in the file.
+     *
+     * @return Number of committed records.
+     */
+    public long getCommitted() {
+        return this.header.getLong(COUNT_OFFSET);
+    }
+
+    // -------------------------------------------------------------------------------- Constructors
+
+    /**
+     * Open the ledger file, create it if not exists, and start the writer. The new swipes are
+     * appended after the committed records.
+     *
+     * @param path     Path of the ledger file.
+     * @param capacity Capacity of the ring, rounded to a power of two.
+     * @throws IOException Error opening the file or not a ledger file.
+     */
+    public SwipeLedger(Path path, int capacity) throws IOException {
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        boolean created = this.channel.size() == 0;
+
+        this.header = this.channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE);
+        this.header.order(ByteOrder.LITTLE_ENDIAN);
+
+        if (created) {
+            this.header.putInt(MAGIC_OFFSET, MAGIC);
+            this.header.putInt(VERSION_OFFSET, VERSION);
+            this.header.putLong(COUNT_OFFSET, 0);
+        } else if (this.header.getInt(MAGIC_OFFSET) != MAGIC || this.header.getInt(VERSION_OFFSET) != VERSION) {
+            this.channel.close();
+            throw new IOException("Not a swipe ledger: " + path);
+        }
+
+        this.count = this.header.getLong(COUNT_OFFSET);
+        this.chunkIndex = -1;
+
+        int size = Integer.highestOneBit(Math.max(capacity, 2) - 1) << 1;
+        this.times = new long[size];
+        this.skipasses = new long[size];
+        this.gates = new int[size];
+        this.flags = new int[size];
+        this.published = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            this.published.set(i, -1);
+        }
+        this.tail = new AtomicLong();
+
+        this.writer = new Thread(this::write, "swipe-ledger");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    /**
+     * Open the ledger file with the default ring capacity.
+     *
+     * @param path Path of the ledger file.
+     * @throws IOException Error opening the file or not a ledger file.
+     */
+    public SwipeLedger(Path path) throws IOException {
+        this(path, DEFAULT_CAPACITY);
+    }
+
+    // -------------------------------------------------------------------------------- Help Methods
+
+    /**
+     * Append a record to the mapped file, map the next chunk if needed. The full chunk is forced
+     * before it is unmapped, so the header never counts records not on the disk.
+     *
+     * @param slot Ring slot of the swipe.
+     * @throws IOException Error mapping the file.
+     */
+    private void append(int slot) throws IOException {
+        long index = this.count / CHUNK_RECORDS;
+
+        if (index != this.chunkIndex) {
+            if (this.chunk != null) {
+                this.chunk.force();
+            }
+            this.chunk = this.channel.map(FileChannel.MapMode.READ_WRITE,
+                    HEADER_SIZE + index * CHUNK_RECORDS * RECORD_SIZE, (long) CHUNK_RECORDS * RECORD_SIZE);
+            this.chunk.order(ByteOrder.LITTLE_ENDIAN);
+            this.chunkIndex = index;
+        }
+
+        int offset = (int) (this.count % CHUNK_RECORDS) * RECORD_SIZE;
+        this.chunk.putLong(offset, this.times[slot]);
+        this.chunk.putLong(offset + 8, this.skipasses[slot]);
+        this.chunk.putInt(offset + 16, this.gates[slot]);
+        this.chunk.putInt(offset + 20, this.flags[slot]);
+        this.count++;
+    }
+
+    /**
+     * Write the published swipes to the file, at most one batch, and commit them. The ring slots
+     * are released before forcing the file, so the gates do not wait for the disk.
+     *
+     * @return Number of swipes written.
+     * @throws IOException Error writing the file.
+     */
+    private int commit() throws IOException {
+        int mask = this.times.length - 1;
+        long sequence = this.head;
+        int written = 0;
+
+        while (written < MAX_BATCH && this.published.get((int) sequence & mask) == sequence) {
+            this.append((int) sequence & mask);
+            sequence++;
+            written++;
+        }
+
+        if (written > 0) {
+            this.head = sequence;
+
+            if (this.chunk != null) {
+                this.chunk.force();
+            }
+            this.header.putLong(COUNT_OFFSET, this.count);
+            this.header.force();
+        }
+
+        return written;
+    }
+
+    /**
+     * Is the next swipe published in the ring.
+     *
+     * @return True if the writer has a swipe to write.
+     */
+    private boolean hasPublished() {
+        long sequence = this.head;
+        return this.published.get((int) sequence & (this.times.length - 1)) == sequence;
+    }
+
+    /**
+     * Writer loop, commit the swipes in batches until the ledger is closed and every claimed
+     * swipe is committed. The writer parks while there are no swipes.
+     */
+    private void write() {
+        try {
+            while (true) {
+                if (this.commit() == 0) {
+                    long tail = this.tail.get();
+                    if ((tail & CLOSED) != 0 && this.head == (tail & ~CLOSED)) {
+                        break;
+                    }
+
+                    this.idle = true;
+                    if (!this.hasPublished() && this.tail.get() == tail) {
+                        LockSupport.park(this);
+                    }
+                    this.idle = false;
+                }
+            }
+        } catch (IOException ioe) {
+            this.failure = ioe;
+        }
+    }
+
+    /**
+     * Check the writer is still running.
+     *
+     * @throws IllegalStateException The writer stopped on a write error.
+     */
+    private void checkWriter() {
+        IOException failure = this.failure;
+
+        if (failure != null) {
+            throw new IllegalStateException("Swipe ledger write error.", failure);
+        }
+    }
+
+    // ----------------------------------------------------------------------------- General Methods
+
+    /**
+     * Record a swipe, wait only if the ring is full, parked for a bounded time between the checks
+     * of the writer.
+     *
+     * @param time      Time of the swipe in milliseconds.
+     * @param skipassId Skipass identifier.
+     * @param gate      Gate number.
+     * @param flags     Swipe flags, {@link #ACCEPTED} and {@link #BLUELINE}.
+     * @throws IllegalStateException Ledger closed, or the writer stopped on a write error.
+     */
+    public void record(long time, long skipassId, int gate, int flags) {
+        this.checkWriter();
+
+        long sequence;
+        do {
+            sequence = this.tail.get();
+            if ((sequence & CLOSED) != 0) {
+                throw new IllegalStateException("Swipe ledger closed.");
+            }
+        } while (!this.tail.compareAndSet(sequence, sequence + 1));
+
+        int slot = (int) sequence & (this.times.length - 1);
+
+        while (sequence - this.head >= this.times.length) {
+            this.checkWriter();
+            LockSupport.unpark(this.writer);
+            LockSupport.parkNanos(this, FULL_WAIT);
+        }
+
+        this.times[slot] = time;
+        this.skipasses[slot] = skipassId;
+        this.gates[slot] = gate;
+        this.flags[slot] = flags;
+        this.published.set(slot, sequence);
+
+        if (this.idle) {
+            LockSupport.unpark(this.writer);
+        }
+        this.checkWriter();
+    }
+
+    /**
+     * Close the ledger, no more swipes can be recorded, wait that all the swipes recorded before
+     * are committed.
+     *
+     * @throws IOException Error closing the file, or the writer stopped on a write error.
+     */
+    @Override
+    public void close() throws IOException {
+        long tail;
+        do {
+            tail = this.tail.get();
+        } while ((tail & CLOSED) == 0 && !this.tail.compareAndSet(tail, tail | CLOSED));
+        LockSupport.unpark(this.writer);
+
+        try {
+            this.writer.join();
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+        } finally {
+            this.channel.close();
+        }
+
+        if (this.failure != null) {
+            throw new IOException("Swipe ledger write error.", this.failure);
+        }
+    }
+
+    // --------------------------------------------------------------------------- Static Components
+
+    /**
+     * Visitor of the ledger records.
+     */
+    public interface Visitor {
+
+        /**
+         * Visit a swipe.
+         *
+         * @param time      Time of the swipe in milliseconds.
+         * @param skipassId Skipass identifier.
+         * @param gate      Gate number.
+         * @param flags     Swipe flags, {@link #ACCEPTED} and {@link #BLUELINE}.
+         */
+        void visit(long time, long skipassId, int gate, int flags);
+    }
+
+    /**
+     * Scan the committed records of a ledger file, mapping the file in large chunks.
+     *
+     * @param path    Path of the ledger file.
+     * @param visitor Visitor of the records.
+     * @return Number of records visited.
+     * @throws IOException Error reading the file or not a ledger file.
+     */
+    public static long scan(Path path, Visitor visitor) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE);
+            header.order(ByteOrder.LITTLE_ENDIAN);
+
+            if (header.getInt(MAGIC_OFFSET) != MAGIC || header.getInt(VERSION_OFFSET) != VERSION) {
+                throw new IOException("Not a swipe ledger: " + path);
+            }
+
+            long count = header.getLong(COUNT_OFFSET);
+
+            for (long first = 0; first < count; first += SCAN_RECORDS) {
+                int records = (int) Math.min(SCAN_RECORDS, count - first);
+                MappedByteBuffer chunk = channel.map(FileChannel.MapMode.READ_ONLY,
+                        HEADER_SIZE + first * RECORD_SIZE, (long) records * RECORD_SIZE);
+                chunk.order(ByteOrder.LITTLE_ENDIAN);
+
+                for (int offset = 0; offset < records * RECORD_SIZE; offset += RECORD_SIZE) {
+                    visitor.visit(chunk.getLong(offset), chunk.getLong(offset + 8),
+                            chunk.getInt(offset + 16), chunk.getInt(offset + 20));
+                }
+            }
+
+            return count;
+        }
+    }
+
+    /**
+     * Get the ledger file of a day in a directory.
+     *
+     * @param directory Ledgers directory.
+     * @param day       Day of the ledger.
+     * @return Path of the ledger file, swipes-yyyy-mm-dd.ledger.
+     */
+    public static Path dayFile(Path directory, LocalDate day) {
+        return directory.resolve("swipes-" + day + ".ledger");
+    }
+
+}
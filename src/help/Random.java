@@ -22,35 +22,196 @@
  * THE SOFTWARE.
  */
 package help;
+
+import java.util.SplittableRandom;
+
 /**
  * Random values.
  *
+ * <p>An instance is a seedable stream of random values, that can be split in independent streams,
+ * one for each thread or entity of a simulation, so a run with the same seed is reproducible and
+ * the threads do not contend a shared generator. The static methods use a stream owned by the
+ * current thread.</p>
+ *
  * @author giuliobosco
- * @version 1.0
+ * @version 1.1
  */
 public class Random {
     // -------------------------------------------------------------------------------------------------------- Costants
+
+    /**
+     * Maximum number of draws of a truncated distribution before clamping the value.
+     */
+    private static final int MAX_ATTEMPTS = 64;
+
     // ------------------------------------------------------------------------------------------------------ Attributes
+
+    /**
+     * Generator of the stream.
+     */
+    private final SplittableRandom generator;
+
     // ----------------------------------------------------------------------------------------------- Getters & Setters
     // ---------------------------------------------------------------------------------------------------- Constructors
+
+    /**
+     * Create a random stream with the seed.
+     *
+     * @param seed Seed of the stream.
+     */
+    public Random(long seed) {
+        this(new SplittableRandom(seed));
+    }
+
+    /**
+     * Create a random stream with an unique seed.
+     */
+    public Random() {
+        this(new SplittableRandom());
+    }
+
+    /**
+     * Create a random stream on a generator.
+     *
+     * @param generator Generator of the stream.
+     */
+    private Random(SplittableRandom generator) {
+        this.generator = generator;
+    }
+
     // ---------------------------------------------------------------------------------------------------- Help Methods
     // ------------------------------------------------------------------------------------------------- General Methods
+
+    /**
+     * Split the stream, the new stream is independent of this one and is determined by the seed
+     * of this stream.
+     *
+     * @return New random stream.
+     */
+    public Random split() {
+        return new Random(this.generator.split());
+    }
+
+    /**
+     * Get a random integer value.
+     *
+     * @param min Minimum value (in the range).
+     * @param max Maximum value (in the range).
+     * @return Integer random value.
+     */
+    public int nextInt(int min, int max) {
+        return this.generator.nextInt(min, max + 1);
+    }
+
+    /**
+     * Get a random double value.
+     *
+     * @param min Minimum value (in the range).
+     * @param max Maximum value (not in the range).
+     * @return Double random value.
+     */
+    public double nextDouble(double min, double max) {
+        return min + this.generator.nextDouble() * (max - min);
+    }
+
+    /**
+     * Get a random double value with an defined number of decimals.
+     *
+     * @param min      Minimum value (in the range).
+     * @param max      Maximum value (not in the range).
+     * @param decimals Number of decimals.
+     * @return Double random value.
+     */
+    public double nextDouble(double min, double max, int decimals) {
+        double scale = Math.pow(10, decimals);
+        return (long) (this.nextDouble(min, max) * scale) / scale;
+    }
+
+    /**
+     * Get a random value of an exponential distribution, as the interval between the arrivals of
+     * a Poisson process.
+     *
+     * @param mean Mean value.
+     * @return Random value, greater or equals than 0.
+     */
+    public double nextExponential(double mean) {
+        return this.generator.nextExponential() * mean;
+    }
+
+    /**
+     * Get a random value of a normal distribution.
+     *
+     * @param mean      Mean value.
+     * @param deviation Standard deviation.
+     * @return Random value.
+     */
+    public double nextNormal(double mean, double deviation) {
+        return this.generator.nextGaussian(mean, deviation);
+    }
+
+    /**
+     * Get a random value of a normal distribution, truncated between a minimum and a maximum
+     * value (not in the range). The value is drawn again while out of the range, after too many
+     * draws it is clamped in the range.
+     *
+     * @param mean      Mean value.
+     * @param deviation Standard deviation.
+     * @param min       Minimum value (not in the range).
+     * @param max       Maximum value (not in the range).
+     * @return Random value.
+     */
+    public double nextTruncatedNormal(double mean, double deviation, double min, double max) {
+        for (int i = 0; i < MAX_ATTEMPTS; i++) {
+            double value = this.nextNormal(mean, deviation);
+
+            if (value > min && value < max) {
+                return value;
+            }
+        }
+
+        return Math.min(Math.max(mean, Math.nextUp(min)), Math.nextDown(max));
+    }
+
+    /**
+     * Get true with a probability.
+     *
+     * @param probability Probability of true, from 0 to 1.
+     * @return Random boolean value.
+     */
+    public boolean nextBoolean(double probability) {
+        return this.generator.nextDouble() < probability;
+    }
+
     // ----------------------------------------------------------------------------------------------- Static Components
 
+    /**
+     * Random stream of each thread.
+     */
+    private static final ThreadLocal<Random> CURRENT = ThreadLocal.withInitial(Random::new);
+
+    /**
+     * Get the random stream of the current thread.
+     *
+     * @return Random stream of the current thread.
+     */
+    public static Random current() {
+        return CURRENT.get();
+    }
+
     /**
      * Get a random integer value.
      *
-     * @param min Minimum value (not in the range).
+     * @param min Minimum value (in the range).
      * @param max Maximum value (in the range).
      * @return Integer random value
      */
     public static int getInt(int min, int max) {
-        return (int) (Math.random() * (max - min + 1)) + min;
+        return current().nextInt(min, max);
     }
 
     /**
      * Get a random integer value.
-     * Minimum value: 0 (not in the range).
+     * Minimum value: 0 (in the range).
      *
      * @param max Maximum value (in the range).
      * @return Integer random value.
@@ -62,24 +223,23 @@ public class Random {
     /**
      * Get a random double value.
      *
-     * @param min Minimum value (not in the range).
-     * @param max Maximum value (in the range).
+     * @param min Minimum value (in the range).
+     * @param max Maximum value (not in the range).
      * @return Double random value.
      */
     public static double getDouble(double min, double max) {
-        return (Math.random() * (max - min + 1)) + min;
+        return current().nextDouble(min, max);
     }
 
     /**
      * Get a random double value with an defined number of decimals.
      *
-     * @param min Minimum value (not in the range).
-     * @param max Maximum value (in the range).
+     * @param min Minimum value (in the range).
+     * @param max Maximum value (not in the range).
      * @param decimals Number of decimals.
      * @return Double random value.
      */
     public static double getDouble(double min, double max, int decimals) {
-        int n = (int) (getDouble(min, max) * Math.pow(10,decimals));
-        return n / Math.pow(10, decimals);
+        return current().nextDouble(min, max, decimals);
     }
-}
\ No newline at end of file
+}